@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.type.Type;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output column of an aggregation pushed down into the scan, computed from the first and last entries of
+ * the partitions of a topic instead of from its rows.
+ */
+public class PulsarAggregateColumnHandle
+        implements ColumnHandle
+{
+    public enum Function
+    {
+        COUNT,
+        MIN_PUBLISH_TIME,
+        MAX_PUBLISH_TIME,
+    }
+
+    private final String name;
+    private final Function function;
+    private final Type type;
+
+    @JsonCreator
+    public PulsarAggregateColumnHandle(
+            @JsonProperty("name") String name,
+            @JsonProperty("function") Function function,
+            @JsonProperty("type") Type type)
+    {
+        this.name = requireNonNull(name, "name is null");
+        this.function = requireNonNull(function, "function is null");
+        this.type = requireNonNull(type, "type is null");
+    }
+
+    @JsonProperty
+    public String getName()
+    {
+        return name;
+    }
+
+    @JsonProperty
+    public Function getFunction()
+    {
+        return function;
+    }
+
+    @JsonProperty
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, function, type);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        PulsarAggregateColumnHandle other = (PulsarAggregateColumnHandle) obj;
+        return Objects.equals(this.name, other.name)
+                && this.function == other.function
+                && Objects.equals(this.type, other.type);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("name", name)
+                .add("function", function)
+                .add("type", type)
+                .toString();
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.type.Type;
+import org.apache.bookkeeper.mledger.impl.PositionImpl;
+import org.apache.pulsar.common.naming.TopicName;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.spi.type.Timestamps.MICROSECONDS_PER_MILLISECOND;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Page source of an aggregated table, returns the row of a global aggregation or the row of every partition
+ * from the single {@link PulsarAggregationSplit} of the topic.
+ *
+ * <p>The aggregates of a partition are answered from the bounds of its entries, without reading the entries in
+ * between: the publish time bounds are the publish times of the first and last entries, since publish times
+ * follow the positions of the messages as for the publish time pruning of the split manager, and the count is
+ * the difference of the message indexes of the first and last entries. If the broker does not index the
+ * messages, the count of the partition falls back to count-only cursors over its ranges, which count the
+ * messages from the entry headers without decoding any payload. A few ranges are read concurrently.
+ */
+public class PulsarAggregationPageSource
+        implements ConnectorPageSource
+{
+    private static final int MAX_ACTIVE_CURSORS = 4;
+
+    private final List<ColumnHandle> columns;
+    private final List<Type> types;
+    private final boolean groupedByPartition;
+    private final boolean countProjected;
+    private final List<PartitionAggregates> partitions;
+    private final Function<PulsarSplit, BoundsReader> boundsReaderFactory;
+    private final Function<PulsarSplit, PulsarRecordCursor> cursorFactory;
+    private final ArrayDeque<PendingRange> pendingRanges = new ArrayDeque<>();
+    private final List<ActiveCursor> activeCursors = new ArrayList<>();
+
+    private boolean boundsRead;
+    private long completedBytes;
+    private long readTimeNanos;
+    private boolean finished;
+
+    public PulsarAggregationPageSource(
+            List<ColumnHandle> columns,
+            PulsarAggregationSplit split,
+            Function<PulsarSplit, BoundsReader> boundsReaderFactory,
+            Function<PulsarSplit, PulsarRecordCursor> cursorFactory)
+    {
+        this.columns = requireNonNull(columns, "columns is null");
+        this.types = columns.stream()
+                .map(PulsarAggregationPageSource::getType)
+                .collect(toImmutableList());
+        this.groupedByPartition = split.isGroupedByPartition();
+        this.countProjected = columns.stream()
+                .anyMatch(column -> column instanceof PulsarAggregateColumnHandle
+                        && ((PulsarAggregateColumnHandle) column).getFunction() == PulsarAggregateColumnHandle.Function.COUNT);
+        Map<String, List<PulsarSplit>> splitsByPartition = new TreeMap<>();
+        for (PulsarSplit rangeSplit : split.getSplits()) {
+            splitsByPartition.computeIfAbsent(rangeSplit.getTableName(), partition -> new ArrayList<>()).add(rangeSplit);
+        }
+        this.partitions = splitsByPartition.values().stream()
+                .map(PartitionAggregates::new)
+                .sorted(Comparator.comparingInt(partition -> partition.partition))
+                .collect(toImmutableList());
+        this.boundsReaderFactory = requireNonNull(boundsReaderFactory, "boundsReaderFactory is null");
+        this.cursorFactory = requireNonNull(cursorFactory, "cursorFactory is null");
+    }
+
+    private static Type getType(ColumnHandle column)
+    {
+        if (column instanceof PulsarAggregateColumnHandle) {
+            return ((PulsarAggregateColumnHandle) column).getType();
+        }
+        // the grouping column
+        return ((PulsarColumnHandle) column).getType();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        long bytes = completedBytes;
+        for (ActiveCursor active : activeCursors) {
+            bytes += active.cursor.getCompletedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        long nanos = readTimeNanos;
+        for (ActiveCursor active : activeCursors) {
+            nanos += active.cursor.getReadTimeNanos();
+        }
+        return nanos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+        if (!boundsRead) {
+            readBounds();
+            boundsRead = true;
+        }
+        openCursors();
+        Iterator<ActiveCursor> iterator = activeCursors.iterator();
+        while (iterator.hasNext()) {
+            ActiveCursor active = iterator.next();
+            int rows;
+            while ((rows = active.cursor.tryAdvanceCountedRows(Integer.MAX_VALUE)) > 0) {
+                active.partition.count += rows;
+            }
+            if (active.cursor.isFinished()) {
+                completedBytes += active.cursor.getCompletedBytes();
+                readTimeNanos += active.cursor.getReadTimeNanos();
+                active.cursor.close();
+                iterator.remove();
+            }
+        }
+        openCursors();
+        if (!activeCursors.isEmpty()) {
+            return null;
+        }
+        finished = true;
+        return buildPage();
+    }
+
+    private void readBounds()
+    {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        BoundsReader boundsReader = boundsReaderFactory.apply(partitions.get(0).splits.get(0));
+        for (PartitionAggregates partition : partitions) {
+            if (partition.entries == 0) {
+                continue;
+            }
+            Bounds bounds = boundsReader.read(partition.splits.get(0), partition.start, partition.entries);
+            partition.minPublishTime = bounds.getFirstPublishTime();
+            partition.maxPublishTime = bounds.getLastPublishTime();
+            if (bounds.getMessageCount().isPresent()) {
+                partition.count = bounds.getMessageCount().getAsLong();
+            }
+            else if (countProjected) {
+                partition.splits.forEach(rangeSplit -> pendingRanges.add(new PendingRange(partition, rangeSplit)));
+            }
+        }
+        readTimeNanos += System.nanoTime() - start;
+    }
+
+    private void openCursors()
+    {
+        while (activeCursors.size() < MAX_ACTIVE_CURSORS && !pendingRanges.isEmpty()) {
+            PendingRange range = pendingRanges.poll();
+            activeCursors.add(new ActiveCursor(range.partition, cursorFactory.apply(range.split)));
+        }
+    }
+
+    private Page buildPage()
+    {
+        PageBuilder pageBuilder = new PageBuilder(types);
+        if (groupedByPartition) {
+            for (PartitionAggregates partition : partitions) {
+                // a partition without entries has no row, so no group
+                if (partition.entries > 0) {
+                    appendRow(pageBuilder, partition.partition, partition.count, partition.minPublishTime,
+                            partition.maxPublishTime);
+                }
+            }
+        }
+        else {
+            long count = 0;
+            long minPublishTime = Long.MAX_VALUE;
+            long maxPublishTime = Long.MIN_VALUE;
+            for (PartitionAggregates partition : partitions) {
+                count += partition.count;
+                minPublishTime = Math.min(minPublishTime, partition.minPublishTime);
+                maxPublishTime = Math.max(maxPublishTime, partition.maxPublishTime);
+            }
+            appendRow(pageBuilder, -1, count, minPublishTime, maxPublishTime);
+        }
+        return pageBuilder.build();
+    }
+
+    private void appendRow(PageBuilder pageBuilder, int partition, long count, long minPublishTime, long maxPublishTime)
+    {
+        pageBuilder.declarePosition();
+        for (int channel = 0; channel < columns.size(); channel++) {
+            BlockBuilder output = pageBuilder.getBlockBuilder(channel);
+            Type type = types.get(channel);
+            if (!(columns.get(channel) instanceof PulsarAggregateColumnHandle)) {
+                type.writeLong(output, partition);
+                continue;
+            }
+            switch (((PulsarAggregateColumnHandle) columns.get(channel)).getFunction()) {
+                case COUNT:
+                    type.writeLong(output, count);
+                    break;
+                case MIN_PUBLISH_TIME:
+                    writePublishTime(type, output, minPublishTime, minPublishTime <= maxPublishTime);
+                    break;
+                case MAX_PUBLISH_TIME:
+                    writePublishTime(type, output, maxPublishTime, minPublishTime <= maxPublishTime);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown aggregate " + columns.get(channel));
+            }
+        }
+    }
+
+    private static void writePublishTime(Type type, BlockBuilder output, long publishTime, boolean present)
+    {
+        if (present) {
+            type.writeLong(output, publishTime * MICROSECONDS_PER_MILLISECOND);
+        }
+        else {
+            // no entry was read
+            output.appendNull();
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (finished || activeCursors.isEmpty()) {
+            return NOT_BLOCKED;
+        }
+        return CompletableFuture.anyOf(activeCursors.stream()
+                .map(active -> active.cursor.isBlocked())
+                .toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        return 0;
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+        activeCursors.forEach(active -> active.cursor.close());
+        activeCursors.clear();
+        pendingRanges.clear();
+    }
+
+    @FunctionalInterface
+    public interface BoundsReader
+    {
+        /**
+         * Returns the bounds of the {@code entries} entries of the partition of {@code split}, from {@code start}.
+         */
+        Bounds read(PulsarSplit split, PositionImpl start, long entries);
+    }
+
+    /**
+     * Publish times in milliseconds of the first and last entries of a partition, and the number of messages of
+     * its entries if the broker indexes them.
+     */
+    public static final class Bounds
+    {
+        private final long firstPublishTime;
+        private final long lastPublishTime;
+        private final OptionalLong messageCount;
+
+        public Bounds(long firstPublishTime, long lastPublishTime, OptionalLong messageCount)
+        {
+            this.firstPublishTime = firstPublishTime;
+            this.lastPublishTime = lastPublishTime;
+            this.messageCount = requireNonNull(messageCount, "messageCount is null");
+        }
+
+        public long getFirstPublishTime()
+        {
+            return firstPublishTime;
+        }
+
+        public long getLastPublishTime()
+        {
+            return lastPublishTime;
+        }
+
+        public OptionalLong getMessageCount()
+        {
+            return messageCount;
+        }
+    }
+
+    /**
+     * Aggregates of a partition, from the ranges of the partition in the split.
+     */
+    private static final class PartitionAggregates
+    {
+        private final int partition;
+        private final List<PulsarSplit> splits;
+        private final PositionImpl start;
+        private final long entries;
+
+        private long count;
+        private long minPublishTime = Long.MAX_VALUE;
+        private long maxPublishTime = Long.MIN_VALUE;
+
+        private PartitionAggregates(List<PulsarSplit> splits)
+        {
+            this.partition = TopicName.getPartitionIndex(splits.get(0).getTableName());
+            this.splits = splits;
+            this.start = splits.stream()
+                    .map(PulsarSplit::getStartPosition)
+                    .min(Comparator.naturalOrder())
+                    .orElseThrow();
+            this.entries = splits.stream()
+                    .mapToLong(PulsarSplit::getSplitSize)
+                    .sum();
+        }
+    }
+
+    private static final class PendingRange
+    {
+        private final PartitionAggregates partition;
+        private final PulsarSplit split;
+
+        private PendingRange(PartitionAggregates partition, PulsarSplit split)
+        {
+            this.partition = partition;
+            this.split = split;
+        }
+    }
+
+    private static final class ActiveCursor
+    {
+        private final PartitionAggregates partition;
+        private final PulsarRecordCursor cursor;
+
+        private ActiveCursor(PartitionAggregates partition, PulsarRecordCursor cursor)
+        {
+            this.partition = partition;
+            this.cursor = cursor;
+        }
+    }
+}
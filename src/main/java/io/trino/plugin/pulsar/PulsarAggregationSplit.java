@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.HostAddress;
+import io.trino.spi.connector.ConnectorSplit;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The single split of an aggregated table, holding the ranges of all partitions of the topic. Its page source
+ * returns the row of a global aggregation, or one row per partition when grouped by partition.
+ */
+public class PulsarAggregationSplit
+        implements ConnectorSplit
+{
+    private final List<PulsarSplit> splits;
+    private final boolean groupedByPartition;
+
+    @JsonCreator
+    public PulsarAggregationSplit(
+            @JsonProperty("splits") List<PulsarSplit> splits,
+            @JsonProperty("groupedByPartition") boolean groupedByPartition)
+    {
+        this.splits = ImmutableList.copyOf(requireNonNull(splits, "splits is null"));
+        this.groupedByPartition = groupedByPartition;
+    }
+
+    @JsonProperty
+    public List<PulsarSplit> getSplits()
+    {
+        return splits;
+    }
+
+    @JsonProperty
+    public boolean isGroupedByPartition()
+    {
+        return groupedByPartition;
+    }
+
+    @Override
+    public boolean isRemotelyAccessible()
+    {
+        return true;
+    }
+
+    @Override
+    public List<HostAddress> getAddresses()
+    {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public Object getInfo()
+    {
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("splits", splits)
+                .add("groupedByPartition", groupedByPartition)
+                .toString();
+    }
+}
@@ -21,7 +21,7 @@ import io.airlift.log.Logger;
 import io.trino.plugin.base.classloader.ClassLoaderSafeConnectorMetadata;
 import io.trino.spi.connector.Connector;
 import io.trino.spi.connector.ConnectorMetadata;
-import io.trino.spi.connector.ConnectorRecordSetProvider;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
 import io.trino.spi.connector.ConnectorSplitManager;
 import io.trino.spi.connector.ConnectorTransactionHandle;
 import io.trino.spi.transaction.IsolationLevel;
@@ -37,7 +37,7 @@ public class PulsarConnector implements Connector {
     private final LifeCycleManager lifeCycleManager;
     private final PulsarMetadata metadata;
     private final PulsarSplitManager splitManager;
-    private final PulsarRecordSetProvider recordSetProvider;
+    private final PulsarPageSourceProvider pageSourceProvider;
     private final PulsarConnectorConfig pulsarConnectorConfig;
 
     @Inject
@@ -45,13 +45,13 @@ public class PulsarConnector implements Connector {
             LifeCycleManager lifeCycleManager,
             PulsarMetadata metadata,
             PulsarSplitManager splitManager,
-            PulsarRecordSetProvider recordSetProvider,
+            PulsarPageSourceProvider pageSourceProvider,
             PulsarConnectorConfig pulsarConnectorConfig
     ) {
         this.lifeCycleManager = requireNonNull(lifeCycleManager, "lifeCycleManager is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.splitManager = requireNonNull(splitManager, "splitManager is null");
-        this.recordSetProvider = requireNonNull(recordSetProvider, "recordSetProvider is null");
+        this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.pulsarConnectorConfig = requireNonNull(pulsarConnectorConfig, "pulsarConnectorConfig is null");
     }
 
@@ -72,8 +72,8 @@ public class PulsarConnector implements Connector {
     }
 
     @Override
-    public ConnectorRecordSetProvider getRecordSetProvider() {
-        return recordSetProvider;
+    public ConnectorPageSourceProvider getPageSourceProvider() {
+        return pageSourceProvider;
     }
 
     public void initConnectorCache() throws Exception {
@@ -17,9 +17,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.log.Logger;
+import io.trino.plugin.pulsar.util.WorkerCacheSizeAllocator;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.bookkeeper.common.util.OrderedScheduler;
 import org.apache.bookkeeper.conf.ClientConfiguration;
@@ -57,6 +59,8 @@ public class PulsarConnectorCache {
     private final ManagedLedgerFactory managedLedgerFactory;
 
     private final StatsProvider statsProvider;
+    private final PulsarDeserializationExecutor deserializationExecutor;
+    private final Optional<WorkerCacheSizeAllocator> workerCacheSizeAllocator;
     private OrderedScheduler offloaderScheduler;
     private final LedgerOffloaderStats offloaderStats;
     private OffloadersCache offloadersCache = new OffloadersCache();
@@ -82,6 +86,12 @@ public class PulsarConnectorCache {
 
         this.statsProvider.start(clientConfiguration);
 
+        this.deserializationExecutor = new PulsarDeserializationExecutor(
+                pulsarConnectorConfig.getDeserializerThreadCount(), this.statsProvider);
+        this.workerCacheSizeAllocator = pulsarConnectorConfig.getMaxWorkerQueueSizeBytes() >= 0
+                ? Optional.of(new WorkerCacheSizeAllocator(pulsarConnectorConfig.getMaxWorkerQueueSizeBytes()))
+                : Optional.empty();
+
         this.initOffloaderScheduler(pulsarConnectorConfig.getOffloadPolices());
 
         int period = pulsarConnectorConfig.getManagedLedgerStatsPeriodSeconds();
@@ -196,9 +206,21 @@ public class PulsarConnectorCache {
         return statsProvider;
     }
 
+    public PulsarDeserializationExecutor getDeserializationExecutor() {
+        return deserializationExecutor;
+    }
+
+    /**
+     * Cache size shared by the queues of all splits of the worker, if bounded.
+     */
+    public Optional<WorkerCacheSizeAllocator> getWorkerCacheSizeAllocator() {
+        return workerCacheSizeAllocator;
+    }
+
     public static void shutdown() throws Exception {
         synchronized (PulsarConnectorCache.class) {
             if (instance != null) {
+                instance.deserializationExecutor.shutdown();
                 instance.statsProvider.stop();
                 instance.managedLedgerFactory.shutdown();
                 instance.metadataStore.close();
@@ -48,6 +48,13 @@ public class PulsarConnectorConfig implements AutoCloseable {
     private int maxSplitMessageQueueSize = 10000;
     private int maxSplitEntryQueueSize = 1000;
     private long maxSplitQueueSizeBytes = -1;
+    private long maxSplitChunkedMessageBufferSizeBytes = 64 * 1024 * 1024;
+    private long maxWorkerQueueSizeBytes = -1;
+    private int deserializerThreadCount = Runtime.getRuntime().availableProcessors();
+    private int splitDeserializationParallelism = 1;
+    private int readAheadDepth = 1;
+    private boolean adaptiveReadEnabled = true;
+    private long rowDecoderCacheSize = 1000;
     private int maxMessageSize = Commands.DEFAULT_MAX_MESSAGE_SIZE;
     private String statsProvider = NullStatsProvider.class.getName();
 
@@ -220,6 +227,84 @@ public class PulsarConnectorConfig implements AutoCloseable {
         return this;
     }
 
+    public long getMaxWorkerQueueSizeBytes() {
+        return this.maxWorkerQueueSizeBytes;
+    }
+
+    /**
+     * Bytes of entries and messages all splits of a worker may queue, shared fairly between them.
+     * Disabled if negative, then only the queue size of each split is bounded.
+     */
+    @Config("pulsar.max-worker-queue-cache-size")
+    public PulsarConnectorConfig setMaxWorkerQueueSizeBytes(long maxWorkerQueueSizeBytes) {
+        this.maxWorkerQueueSizeBytes = maxWorkerQueueSizeBytes;
+        return this;
+    }
+
+    public long getMaxSplitChunkedMessageBufferSizeBytes() {
+        return this.maxSplitChunkedMessageBufferSizeBytes;
+    }
+
+    /**
+     * Bytes of the chunks of incomplete chunked messages a split may hold. Once reached, the oldest
+     * incomplete messages are dropped, as a consumer does when its pending chunked messages are full.
+     */
+    @Config("pulsar.max-split-chunked-message-buffer-size")
+    public PulsarConnectorConfig setMaxSplitChunkedMessageBufferSizeBytes(long maxSplitChunkedMessageBufferSizeBytes) {
+        this.maxSplitChunkedMessageBufferSizeBytes = maxSplitChunkedMessageBufferSizeBytes;
+        return this;
+    }
+
+    public int getDeserializerThreadCount() {
+        return this.deserializerThreadCount;
+    }
+
+    @Config("pulsar.deserializer-thread-count")
+    public PulsarConnectorConfig setDeserializerThreadCount(int deserializerThreadCount) {
+        this.deserializerThreadCount = deserializerThreadCount;
+        return this;
+    }
+
+    public int getSplitDeserializationParallelism() {
+        return this.splitDeserializationParallelism;
+    }
+
+    @Config("pulsar.split-deserialization-parallelism")
+    public PulsarConnectorConfig setSplitDeserializationParallelism(int splitDeserializationParallelism) {
+        this.splitDeserializationParallelism = splitDeserializationParallelism;
+        return this;
+    }
+
+    public int getReadAheadDepth() {
+        return this.readAheadDepth;
+    }
+
+    @Config("pulsar.read-ahead-depth")
+    public PulsarConnectorConfig setReadAheadDepth(int readAheadDepth) {
+        this.readAheadDepth = readAheadDepth;
+        return this;
+    }
+
+    public boolean isAdaptiveReadEnabled() {
+        return this.adaptiveReadEnabled;
+    }
+
+    @Config("pulsar.adaptive-read-enabled")
+    public PulsarConnectorConfig setAdaptiveReadEnabled(boolean adaptiveReadEnabled) {
+        this.adaptiveReadEnabled = adaptiveReadEnabled;
+        return this;
+    }
+
+    public long getRowDecoderCacheSize() {
+        return this.rowDecoderCacheSize;
+    }
+
+    @Config("pulsar.row-decoder-cache-size")
+    public PulsarConnectorConfig setRowDecoderCacheSize(long rowDecoderCacheSize) {
+        this.rowDecoderCacheSize = rowDecoderCacheSize;
+        return this;
+    }
+
     @NotNull
     public String getStatsProvider() {
         return statsProvider;
@@ -27,7 +27,7 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
 
     private final StatsLogger statsLogger;
 
-    private static final String SCOPE = "split";
+    static final String SCOPE = "split";
 
     // metric names
 
@@ -95,6 +95,12 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
 
     private static final String TOTAL_EXECUTION_TIME = "total-execution-time";
 
+    // cpu time spent by the shared deserializer threads on the entries of a split
+    private static final String DESERIALIZE_CPU_TIME = "deserialize-cpu-time";
+
+    // cpu time spent by the shared deserializer threads per query
+    private static final String DESERIALIZE_CPU_TIME_PER_QUERY = "deserialize-cpu-time-per-query";
+
     // stats loggers
 
     private final OpStatsLogger statsLoggerEntryQueueDequeueWaitTime;
@@ -109,6 +115,7 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
     private final OpStatsLogger statsLoggerRecordDeserializeTime;
     private final Counter statsLoggerNumRecordDeserialized;
     private final OpStatsLogger statsLoggerTotalExecutionTime;
+    private final OpStatsLogger statsLoggerDeserializeCpuTime;
 
     // internal tracking variables
     private long entryQueueDequeueWaitTimeStartTime;
@@ -128,6 +135,7 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
     private long messageQueueDequeueWaitTimeSum = 0L;
     private long recordDeserializeTimeStartTime;
     private long recordDeserializeTimeSum = 0L;
+    private long deserializeCpuTimeSum = 0L;
 
     public PulsarConnectorMetricsTracker(StatsProvider statsProvider) {
         this.statsLogger = statsProvider instanceof NullStatsProvider
@@ -147,6 +155,7 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
             statsLoggerRecordDeserializeTime = statsLogger.getOpStatsLogger(RECORD_DESERIALIZE_TIME);
             statsLoggerNumRecordDeserialized = statsLogger.getCounter(NUM_RECORD_DESERIALIZED);
             statsLoggerTotalExecutionTime = statsLogger.getOpStatsLogger(TOTAL_EXECUTION_TIME);
+            statsLoggerDeserializeCpuTime = statsLogger.getOpStatsLogger(DESERIALIZE_CPU_TIME);
         } else {
             statsLoggerEntryQueueDequeueWaitTime = null;
             statsLoggerBytesRead = null;
@@ -160,6 +169,7 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
             statsLoggerRecordDeserializeTime = null;
             statsLoggerNumRecordDeserialized = null;
             statsLoggerTotalExecutionTime = null;
+            statsLoggerDeserializeCpuTime = null;
         }
     }
 
@@ -300,6 +310,13 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
         }
     }
 
+    public void register_DESERIALIZE_CPU_TIME(long cpuTime) {
+        if (statsLogger != null) {
+            deserializeCpuTimeSum += cpuTime;
+            statsLoggerDeserializeCpuTime.registerSuccessfulEvent(cpuTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
     @Override
     public void close() {
         if (statsLogger != null) {
@@ -346,6 +363,10 @@ public class PulsarConnectorMetricsTracker implements AutoCloseable{
             // register time spent deserializing records per query
             statsLogger.getOpStatsLogger(RECORD_DESERIALIZE_TIME_PER_QUERY)
                     .registerSuccessfulEvent(recordDeserializeTimeSum, TimeUnit.NANOSECONDS);
+
+            // register cpu time spent deserializing entries per query
+            statsLogger.getOpStatsLogger(DESERIALIZE_CPU_TIME_PER_QUERY)
+                    .registerSuccessfulEvent(deserializeCpuTimeSum, TimeUnit.NANOSECONDS);
         }
     }
 }
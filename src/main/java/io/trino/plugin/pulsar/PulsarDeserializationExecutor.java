@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.stats.StatsProvider;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Worker-wide pool of threads deserializing entries for all active splits.
+ *
+ * <p>Every split submits at most one task at a time and every task processes a bounded number of entries
+ * before it gives the thread back, so the splits are served round-robin from the pool's FIFO queue.
+ * The number of threads does not depend on the number of concurrently running splits.
+ */
+public class PulsarDeserializationExecutor
+        implements Executor
+{
+    static final String QUEUE_DEPTH = "deserializer-queue-depth";
+    static final String ACTIVE_THREADS = "deserializer-active-threads";
+
+    private final ThreadPoolExecutor executor;
+
+    public PulsarDeserializationExecutor(int threadCount, StatsProvider statsProvider)
+    {
+        checkArgument(threadCount > 0, "threadCount must be positive");
+        requireNonNull(statsProvider, "statsProvider is null");
+        this.executor = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                0L,
+                MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("pulsar-deserializer-%d")
+                        .setDaemon(true)
+                        .build());
+
+        StatsLogger statsLogger = statsProvider.getStatsLogger(PulsarConnectorMetricsTracker.SCOPE);
+        statsLogger.registerGauge(QUEUE_DEPTH, new Gauge<Integer>()
+        {
+            @Override
+            public Integer getDefaultValue()
+            {
+                return 0;
+            }
+
+            @Override
+            public Integer getSample()
+            {
+                return getQueueDepth();
+            }
+        });
+        statsLogger.registerGauge(ACTIVE_THREADS, new Gauge<Integer>()
+        {
+            @Override
+            public Integer getDefaultValue()
+            {
+                return 0;
+            }
+
+            @Override
+            public Integer getSample()
+            {
+                return executor.getActiveCount();
+            }
+        });
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        executor.execute(task);
+    }
+
+    /**
+     * Returns the number of split tasks waiting for a deserializer thread.
+     */
+    public int getQueueDepth()
+    {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown()
+            throws InterruptedException
+    {
+        executor.shutdownNow();
+        executor.awaitTermination(10, SECONDS);
+    }
+}
@@ -14,12 +14,22 @@
 package io.trino.plugin.pulsar;
 
 import static java.lang.String.format;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.type.TypeManager;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pulsar.common.naming.TopicName;
@@ -32,15 +42,33 @@ import org.apache.pulsar.sql.presto.decoder.protobufnative.PulsarProtobufNativeR
 
 /**
  * dispatcher RowDecoderFactory for {@link org.apache.pulsar.common.schema.SchemaType}.
+ *
+ * <p>Row decoders are stateless once created, so they are cached worker-wide by schema content and decoded
+ * columns. The topic name only appears in error messages and the schema name usually is the topic name,
+ * so neither is part of the key and topics sharing a schema share its decoders.
  */
 @Slf4j
 public class PulsarDispatchingRowDecoderFactory {
+    private static final long DEFAULT_ROW_DECODER_CACHE_SIZE = 1000;
+
     private final Function<SchemaType, PulsarRowDecoderFactory> decoderFactories;
     private final TypeManager typeManager;
+    private final Cache<RowDecoderKey, PulsarRowDecoder> rowDecoderCache;
 
-    @Inject
     public PulsarDispatchingRowDecoderFactory(TypeManager typeManager) {
+        this(typeManager, DEFAULT_ROW_DECODER_CACHE_SIZE);
+    }
+
+    @Inject
+    public PulsarDispatchingRowDecoderFactory(TypeManager typeManager, PulsarConnectorConfig pulsarConnectorConfig) {
+        this(typeManager, pulsarConnectorConfig.getRowDecoderCacheSize());
+    }
+
+    private PulsarDispatchingRowDecoderFactory(TypeManager typeManager, long rowDecoderCacheSize) {
         this.typeManager = typeManager;
+        this.rowDecoderCache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, rowDecoderCacheSize))
+                .build();
 
         final PulsarRowDecoderFactory avro = new PulsarAvroRowDecoderFactory(typeManager);
         final PulsarRowDecoderFactory json = new PulsarJsonRowDecoderFactory(typeManager);
@@ -63,8 +91,23 @@ public class PulsarDispatchingRowDecoderFactory {
 
     public PulsarRowDecoder createRowDecoder(TopicName topicName, SchemaInfo schemaInfo,
                                              Set<DecoderColumnHandle> columns) {
-        PulsarRowDecoderFactory rowDecoderFactory = createDecoderFactory(schemaInfo);
-        return rowDecoderFactory.createRowDecoder(topicName, schemaInfo, columns);
+        RowDecoderKey key = new RowDecoderKey(schemaInfo, columns);
+        try {
+            return rowDecoderCache.get(key, () -> {
+                PulsarRowDecoderFactory rowDecoderFactory = createDecoderFactory(schemaInfo);
+                return rowDecoderFactory.createRowDecoder(topicName, schemaInfo, key.columns);
+            });
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @VisibleForTesting
+    long getCachedRowDecoderCount() {
+        return rowDecoderCache.size();
     }
 
     public List<ColumnMetadata> extractColumnMetadata(TopicName topicName, SchemaInfo schemaInfo,
@@ -85,4 +128,42 @@ public class PulsarDispatchingRowDecoderFactory {
     public TypeManager getTypeManager() {
         return typeManager;
     }
+
+    private static final class RowDecoderKey {
+        private final SchemaType type;
+        private final byte[] schema;
+        private final Map<String, String> properties;
+        private final Set<DecoderColumnHandle> columns;
+        private final int hashCode;
+
+        RowDecoderKey(SchemaInfo schemaInfo, Set<DecoderColumnHandle> columns) {
+            this.type = schemaInfo.getType();
+            this.schema = schemaInfo.getSchema() == null ? new byte[0] : schemaInfo.getSchema();
+            this.properties = schemaInfo.getProperties() == null
+                    ? ImmutableMap.of() : ImmutableMap.copyOf(schemaInfo.getProperties());
+            this.columns = ImmutableSet.copyOf(columns);
+            this.hashCode = Objects.hash(type, Arrays.hashCode(schema), properties, this.columns);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowDecoderKey)) {
+                return false;
+            }
+            RowDecoderKey that = (RowDecoderKey) o;
+            return hashCode == that.hashCode
+                    && type == that.type
+                    && Arrays.equals(schema, that.schema)
+                    && properties.equals(that.properties)
+                    && columns.equals(that.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.airlift.slice.Slice;
+import io.trino.decoder.FieldValueProvider;
+import io.trino.spi.block.Block;
+
+/**
+ * Reusable value of one column of the current row.
+ *
+ * <p>A split creates one holder per projected column when it starts and the row decoders overwrite the
+ * holders for every message, so primitive values are materialized without allocating a provider per cell.
+ * Values that are not primitive, such as blocks, are held through a delegate provider.
+ */
+public final class PulsarFieldValueHolder
+        extends FieldValueProvider
+{
+    private enum Kind
+    {
+        NULL, LONG, DOUBLE, BOOLEAN, SLICE, DELEGATE
+    }
+
+    private Kind kind = Kind.NULL;
+    private long longValue;
+    private double doubleValue;
+    private boolean booleanValue;
+    private Slice sliceValue;
+    private FieldValueProvider delegate;
+
+    public void setNull()
+    {
+        kind = Kind.NULL;
+        sliceValue = null;
+        delegate = null;
+    }
+
+    public void setLong(long value)
+    {
+        kind = Kind.LONG;
+        longValue = value;
+    }
+
+    public void setDouble(double value)
+    {
+        kind = Kind.DOUBLE;
+        doubleValue = value;
+    }
+
+    public void setBoolean(boolean value)
+    {
+        kind = Kind.BOOLEAN;
+        booleanValue = value;
+    }
+
+    /**
+     * Sets the value to {@code value}, or to null if {@code value} is null.
+     */
+    public void setSlice(Slice value)
+    {
+        if (value == null) {
+            setNull();
+            return;
+        }
+        kind = Kind.SLICE;
+        sliceValue = value;
+    }
+
+    /**
+     * Sets the value to the value of {@code provider}, or to null if {@code provider} is null.
+     */
+    public void setProvider(FieldValueProvider provider)
+    {
+        if (provider == null) {
+            setNull();
+            return;
+        }
+        kind = Kind.DELEGATE;
+        delegate = provider;
+    }
+
+    @Override
+    public boolean isNull()
+    {
+        switch (kind) {
+            case NULL:
+                return true;
+            case DELEGATE:
+                return delegate.isNull();
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean getBoolean()
+    {
+        if (kind == Kind.BOOLEAN) {
+            return booleanValue;
+        }
+        if (kind == Kind.DELEGATE) {
+            return delegate.getBoolean();
+        }
+        return super.getBoolean();
+    }
+
+    @Override
+    public long getLong()
+    {
+        if (kind == Kind.LONG) {
+            return longValue;
+        }
+        if (kind == Kind.DELEGATE) {
+            return delegate.getLong();
+        }
+        return super.getLong();
+    }
+
+    @Override
+    public double getDouble()
+    {
+        if (kind == Kind.DOUBLE) {
+            return doubleValue;
+        }
+        if (kind == Kind.DELEGATE) {
+            return delegate.getDouble();
+        }
+        return super.getDouble();
+    }
+
+    @Override
+    public Slice getSlice()
+    {
+        if (kind == Kind.SLICE) {
+            return sliceValue;
+        }
+        if (kind == Kind.DELEGATE) {
+            return delegate.getSlice();
+        }
+        return super.getSlice();
+    }
+
+    @Override
+    public Block getBlock()
+    {
+        if (kind == Kind.DELEGATE) {
+            return delegate.getBlock();
+        }
+        return super.getBlock();
+    }
+}
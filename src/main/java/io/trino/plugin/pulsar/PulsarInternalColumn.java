@@ -15,6 +15,7 @@ package io.trino.plugin.pulsar;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static io.trino.spi.type.Timestamps.MICROSECONDS_PER_MILLISECOND;
 import static java.util.Objects.requireNonNull;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -96,6 +97,14 @@ public class PulsarInternalColumn {
                 PulsarColumnHandle.HandleKeyValueType.NONE, new PulsarColumnMetadata.DecoderExtraInfo());
     }
 
+    /**
+     * Returns the value of {@link #EVENT_TIME} or {@link #PUBLISH_TIME} for a message time in epoch milliseconds,
+     * TIMESTAMP(3) values are held in microseconds.
+     */
+    static long toTimestampValue(long millis) {
+        return millis * MICROSECONDS_PER_MILLISECOND;
+    }
+
     public static Set<PulsarInternalColumn> getInternalFields() {
         return internalFields;
     }
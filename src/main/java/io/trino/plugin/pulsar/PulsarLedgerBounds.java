@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.airlift.log.Logger;
+import io.netty.buffer.ByteBuf;
+import io.trino.spi.TrinoException;
+import org.apache.bookkeeper.mledger.AsyncCallbacks;
+import org.apache.bookkeeper.mledger.Entry;
+import org.apache.bookkeeper.mledger.ManagedLedgerConfig;
+import org.apache.bookkeeper.mledger.ManagedLedgerException;
+import org.apache.bookkeeper.mledger.ManagedLedgerFactory;
+import org.apache.bookkeeper.mledger.ReadOnlyCursor;
+import org.apache.bookkeeper.mledger.impl.PositionImpl;
+import org.apache.pulsar.common.api.proto.BrokerEntryMetadata;
+import org.apache.pulsar.common.api.proto.MessageMetadata;
+import org.apache.pulsar.common.naming.NamespaceName;
+import org.apache.pulsar.common.naming.TopicName;
+import org.apache.pulsar.common.protocol.Commands;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+import static io.trino.plugin.pulsar.PulsarErrorCode.PULSAR_SPLIT_ERROR;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the bounds of the entries of a partition from its managed ledger: only the first and the last entry are
+ * read, the entries in between are skipped from the ledger metadata. The message count is known when the broker
+ * appends the index of the messages to the entries (AppendIndexMetadataInterceptor). Like the backlog of the
+ * broker, the index counts every chunk of a chunked message.
+ */
+public class PulsarLedgerBounds
+        implements PulsarAggregationPageSource.BoundsReader
+{
+    private static final Logger log = Logger.get(PulsarLedgerBounds.class);
+
+    private final ManagedLedgerFactory managedLedgerFactory;
+    private final ManagedLedgerConfig managedLedgerConfig;
+
+    public PulsarLedgerBounds(ManagedLedgerFactory managedLedgerFactory, ManagedLedgerConfig managedLedgerConfig)
+    {
+        this.managedLedgerFactory = requireNonNull(managedLedgerFactory, "managedLedgerFactory is null");
+        this.managedLedgerConfig = requireNonNull(managedLedgerConfig, "managedLedgerConfig is null");
+    }
+
+    @Override
+    public PulsarAggregationPageSource.Bounds read(PulsarSplit split, PositionImpl start, long entries)
+    {
+        TopicName topicName = TopicName.get("persistent", NamespaceName.get(split.getSchemaName()), split.getTableName());
+        ReadOnlyCursor cursor = null;
+        try {
+            cursor = managedLedgerFactory.openReadOnlyCursor(topicName.getPersistenceNamingEncoding(), start,
+                    managedLedgerConfig);
+            EntryHeader first = readEntryHeader(cursor);
+            EntryHeader last = first;
+            if (entries > 1) {
+                // the read of the first entry moved the cursor to the second one
+                cursor.skipEntries(toIntExact(entries - 2));
+                last = readEntryHeader(cursor);
+            }
+            OptionalLong messageCount = OptionalLong.empty();
+            if (first.index >= 0 && last.index >= 0) {
+                // the index of an entry is the index of its last message
+                messageCount = OptionalLong.of(last.index - first.index + first.messages);
+            }
+            return new PulsarAggregationPageSource.Bounds(first.publishTime, last.publishTime, messageCount);
+        }
+        catch (Exception e) {
+            throw new TrinoException(PULSAR_SPLIT_ERROR, "Failed to read the entry bounds of " + topicName, e);
+        }
+        finally {
+            if (cursor != null) {
+                try {
+                    cursor.close();
+                }
+                catch (Exception e) {
+                    log.error(e, "Failed to close read only cursor");
+                }
+            }
+        }
+    }
+
+    private static EntryHeader readEntryHeader(ReadOnlyCursor cursor)
+            throws Exception
+    {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        cursor.asyncReadEntries(1, new AsyncCallbacks.ReadEntriesCallback()
+        {
+            @Override
+            public void readEntriesComplete(List<Entry> entries, Object ctx)
+            {
+                if (entries.isEmpty()) {
+                    future.completeExceptionally(new IllegalStateException("No entry left at " + cursor.getReadPosition()));
+                    return;
+                }
+                future.complete(entries.get(0));
+            }
+
+            @Override
+            public void readEntriesFailed(ManagedLedgerException exception, Object ctx)
+            {
+                future.completeExceptionally(exception);
+            }
+        }, null, PositionImpl.LATEST);
+
+        Entry entry = future.get();
+        try {
+            ByteBuf data = entry.getDataBuffer();
+            BrokerEntryMetadata brokerEntryMetadata = Commands.peekBrokerEntryMetadataIfExist(data);
+            MessageMetadata metadata = Commands.peekMessageMetadata(data, null, -1);
+            if (metadata == null) {
+                throw new IllegalStateException("Failed to parse the metadata of entry " + entry.getPosition());
+            }
+            return new EntryHeader(
+                    metadata.getPublishTime(),
+                    metadata.hasNumMessagesInBatch() ? metadata.getNumMessagesInBatch() : 1,
+                    brokerEntryMetadata != null && brokerEntryMetadata.hasIndex() ? brokerEntryMetadata.getIndex() : -1);
+        }
+        finally {
+            entry.release();
+        }
+    }
+
+    private static final class EntryHeader
+    {
+        private final long publishTime;
+        private final int messages;
+        // index of the last message of the entry, -1 if the broker did not append it
+        private final long index;
+
+        private EntryHeader(long publishTime, int messages, long index)
+        {
+            this.publishTime = publishTime;
+            this.messages = messages;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableSet;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.TupleDomain;
+import org.apache.pulsar.common.api.proto.MessageMetadata;
+import org.apache.pulsar.common.api.raw.RawMessage;
+
+import java.util.Map;
+import java.util.Set;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates the domains of a split on the internal columns that are answered by the headers of a message,
+ * so rejected messages are released before they reach the message queue and the row decoders.
+ *
+ * <p>The publish time and the producer name are shared by all messages of an entry, so their domains are
+ * also evaluated on the metadata of the entry, which rejects whole entries before they are decompressed.
+ * Domains of all header columns are used, whether the columns are projected or not.
+ */
+public class PulsarMessageHeaderFilter
+{
+    private static final Set<String> HEADER_COLUMNS = ImmutableSet.of(
+            PulsarInternalColumn.KEY.getName(),
+            PulsarInternalColumn.PRODUCER_NAME.getName(),
+            PulsarInternalColumn.EVENT_TIME.getName(),
+            PulsarInternalColumn.SEQUENCE_ID.getName(),
+            PulsarInternalColumn.PUBLISH_TIME.getName());
+
+    private static final PulsarMessageHeaderFilter ALL = new PulsarMessageHeaderFilter(false, null, null, null, null, null);
+
+    private final boolean none;
+    private final Domain key;
+    private final Domain producerName;
+    private final Domain eventTime;
+    private final Domain sequenceId;
+    private final Domain publishTime;
+
+    private PulsarMessageHeaderFilter(boolean none, Domain key, Domain producerName, Domain eventTime, Domain sequenceId, Domain publishTime)
+    {
+        this.none = none;
+        this.key = key;
+        this.producerName = producerName;
+        this.eventTime = eventTime;
+        this.sequenceId = sequenceId;
+        this.publishTime = publishTime;
+    }
+
+    public static PulsarMessageHeaderFilter create(TupleDomain<ColumnHandle> tupleDomain)
+    {
+        requireNonNull(tupleDomain, "tupleDomain is null");
+        if (tupleDomain.isNone()) {
+            return new PulsarMessageHeaderFilter(true, null, null, null, null, null);
+        }
+        Domain key = null;
+        Domain producerName = null;
+        Domain eventTime = null;
+        Domain sequenceId = null;
+        Domain publishTime = null;
+        boolean found = false;
+        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().get().entrySet()) {
+            PulsarColumnHandle columnHandle = (PulsarColumnHandle) entry.getKey();
+            Domain domain = entry.getValue();
+            if (!isHeaderColumn(columnHandle) || domain.isAll()) {
+                continue;
+            }
+            found = true;
+            String name = columnHandle.getName();
+            if (name.equals(PulsarInternalColumn.KEY.getName())) {
+                key = domain;
+            }
+            else if (name.equals(PulsarInternalColumn.PRODUCER_NAME.getName())) {
+                producerName = domain;
+            }
+            else if (name.equals(PulsarInternalColumn.EVENT_TIME.getName())) {
+                eventTime = domain;
+            }
+            else if (name.equals(PulsarInternalColumn.SEQUENCE_ID.getName())) {
+                sequenceId = domain;
+            }
+            else {
+                publishTime = domain;
+            }
+        }
+        if (!found) {
+            return ALL;
+        }
+        return new PulsarMessageHeaderFilter(false, key, producerName, eventTime, sequenceId, publishTime);
+    }
+
+    /**
+     * Returns true for the internal columns whose domains are evaluated on the message headers.
+     */
+    public static boolean isHeaderColumn(PulsarColumnHandle columnHandle)
+    {
+        return columnHandle.isInternal() && HEADER_COLUMNS.contains(columnHandle.getName());
+    }
+
+    public boolean isAll()
+    {
+        return this == ALL;
+    }
+
+    /**
+     * Returns true if all domains are evaluated on the metadata of the entries, so the messages of an entry
+     * do not need to be parsed to be filtered.
+     */
+    public boolean isEntryLevel()
+    {
+        return key == null && eventTime == null && sequenceId == null;
+    }
+
+    /**
+     * Evaluate the domains shared by all messages of an entry on the metadata of the entry.
+     * The metadata of chunks is not evaluated, the message is evaluated once it is complete.
+     */
+    public boolean matchesEntry(MessageMetadata metadata)
+    {
+        if (none) {
+            return false;
+        }
+        if (metadata.hasNumChunksFromMsg() && metadata.getNumChunksFromMsg() > 1) {
+            return true;
+        }
+        return matchesTime(publishTime, metadata.getPublishTime())
+                && matches(producerName, metadata.getProducerName());
+    }
+
+    public boolean matches(RawMessage message)
+    {
+        if (none) {
+            return false;
+        }
+        return matchesTime(publishTime, message.getPublishTime())
+                && matches(producerName, message.getProducerName())
+                && matches(key, message.getKey().orElse(null))
+                && matchesTime(eventTime, message.getEventTime())
+                && (sequenceId == null || sequenceId.includesNullableValue(message.getSequenceId()));
+    }
+
+    private static boolean matches(Domain domain, String value)
+    {
+        if (domain == null) {
+            return true;
+        }
+        return domain.includesNullableValue(value == null ? null : utf8Slice(value));
+    }
+
+    private static boolean matchesTime(Domain domain, long millis)
+    {
+        if (domain == null) {
+            return true;
+        }
+        // a zero time is read as null, see the internal columns of the cursor
+        return domain.includesNullableValue(millis == 0 ? null : PulsarInternalColumn.toTimestampValue(millis));
+    }
+}
@@ -13,7 +13,13 @@
  */
 package io.trino.plugin.pulsar;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.trino.plugin.base.projection.ApplyProjectionUtil.createProjectedColumnRepresentation;
+import static io.trino.plugin.base.projection.ApplyProjectionUtil.extractSupportedProjectedColumns;
+import static io.trino.plugin.base.projection.ApplyProjectionUtil.replaceWithNewVariables;
 import static io.trino.spi.StandardErrorCode.NOT_FOUND;
+import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.trino.spi.StandardErrorCode.QUERY_REJECTED;
 import static java.util.Objects.requireNonNull;
 import static io.trino.plugin.pulsar.PulsarConnectorUtils.restoreNamespaceDelimiterIfNeeded;
@@ -27,7 +33,11 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.log.Logger;
+import io.trino.plugin.base.projection.ApplyProjectionUtil.ProjectedColumnRepresentation;
 import io.trino.spi.TrinoException;
+import io.trino.spi.connector.AggregateFunction;
+import io.trino.spi.connector.AggregationApplicationResult;
+import io.trino.spi.connector.Assignment;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.connector.ConnectorMetadata;
@@ -38,9 +48,20 @@ import io.trino.spi.connector.ConnectorTableLayoutHandle;
 import io.trino.spi.connector.ConnectorTableLayoutResult;
 import io.trino.spi.connector.ConnectorTableMetadata;
 import io.trino.spi.connector.Constraint;
+import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.connector.LimitApplicationResult;
+import io.trino.spi.connector.ProjectionApplicationResult;
 import io.trino.spi.connector.SchemaTableName;
 import io.trino.spi.connector.SchemaTablePrefix;
+import io.trino.spi.connector.SortItem;
+import io.trino.spi.connector.SortOrder;
 import io.trino.spi.connector.TableNotFoundException;
+import io.trino.spi.connector.TopNApplicationResult;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.Type;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -313,6 +334,245 @@ public class PulsarMetadata implements ConnectorMetadata {
         }
     }
 
+    /**
+     * Push dereference chains on payload columns down as synthetic columns whose mapping is the full path
+     * of the dereferenced field, so the decoders extract the leaf instead of building the whole row.
+     */
+    @Override
+    public Optional<ProjectionApplicationResult<ConnectorTableHandle>> applyProjection(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<ConnectorExpression> projections,
+            Map<String, ColumnHandle> assignments) {
+        if (convertTableHandle(handle).isAggregated()) {
+            return Optional.empty();
+        }
+        Set<ConnectorExpression> projectedExpressions = projections.stream()
+                .flatMap(expression -> extractSupportedProjectedColumns(expression).stream())
+                .collect(toImmutableSet());
+
+        Map<ConnectorExpression, Variable> expressionToVariables = new HashMap<>();
+        Map<String, Assignment> newAssignments = new HashMap<>();
+        boolean pushedDown = false;
+        for (ConnectorExpression expression : projectedExpressions) {
+            ProjectedColumnRepresentation projection = createProjectedColumnRepresentation(expression);
+            Variable variable = projection.getVariable();
+            PulsarColumnHandle baseColumn = (PulsarColumnHandle) assignments.get(variable.getName());
+
+            Optional<PulsarColumnHandle> projected = projection.isVariable()
+                    ? Optional.empty() : projectColumn(baseColumn, projection.getDereferenceIndices());
+            if (projected.isEmpty()) {
+                // the dereferences, if any, stay in the projection
+                expressionToVariables.put(variable, variable);
+                newAssignments.put(variable.getName(), new Assignment(variable.getName(), baseColumn,
+                        baseColumn.getType()));
+                continue;
+            }
+
+            PulsarColumnHandle projectedColumn = projected.get();
+            Variable projectedVariable = new Variable(projectedColumn.getName(), expression.getType());
+            expressionToVariables.put(expression, projectedVariable);
+            newAssignments.put(projectedVariable.getName(), new Assignment(projectedVariable.getName(),
+                    projectedColumn, projectedColumn.getType()));
+            pushedDown = true;
+        }
+
+        if (!pushedDown) {
+            return Optional.empty();
+        }
+
+        List<ConnectorExpression> newProjections = projections.stream()
+                .map(expression -> replaceWithNewVariables(expression, expressionToVariables))
+                .collect(toImmutableList());
+        return Optional.of(new ProjectionApplicationResult<>(
+                handle,
+                newProjections,
+                ImmutableList.copyOf(newAssignments.values()),
+                false));
+    }
+
+    /**
+     * Keep the predicate on the table handle: it prunes partitions and ledgers when the splits are planned and
+     * is evaluated on the decoded rows of every split. The whole predicate remains for the engine, since only
+     * the projected columns are evaluated in the scan.
+     */
+    @Override
+    public Optional<ConstraintApplicationResult<ConnectorTableHandle>> applyFilter(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            Constraint constraint) {
+        PulsarTableHandle tableHandle = convertTableHandle(handle);
+        if (tableHandle.getLimit().isPresent() || tableHandle.isAggregated()) {
+            return Optional.empty();
+        }
+        TupleDomain<ColumnHandle> newConstraint = tableHandle.getConstraint().intersect(constraint.getSummary());
+        if (newConstraint.equals(tableHandle.getConstraint())) {
+            return Optional.empty();
+        }
+        return Optional.of(new ConstraintApplicationResult<>(
+                tableHandle.withConstraint(newConstraint),
+                constraint.getSummary(),
+                constraint.getExpression(),
+                false));
+    }
+
+    /**
+     * Every split stops reading once it returned the limit, and the splits are planned one per partition.
+     * The limit is not guaranteed since each split returns up to the limit.
+     */
+    @Override
+    public Optional<LimitApplicationResult<ConnectorTableHandle>> applyLimit(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            long limit) {
+        PulsarTableHandle tableHandle = convertTableHandle(handle);
+        if (tableHandle.isLatestByPublishTime() || tableHandle.isAggregated()
+                || (tableHandle.getLimit().isPresent() && tableHandle.getLimit().getAsLong() <= limit)) {
+            return Optional.empty();
+        }
+        return Optional.of(new LimitApplicationResult<>(tableHandle.withLimit(limit), false, false));
+    }
+
+    /**
+     * Push down ORDER BY __publish_time__ DESC LIMIT n: every partition is read from its tail, window by window
+     * towards its head, until the windows read hold n rows. Like the publish time pruning of the split manager,
+     * this relies on publish times following the positions of the messages. The engine still merges the rows
+     * of the partitions.
+     */
+    @Override
+    public Optional<TopNApplicationResult<ConnectorTableHandle>> applyTopN(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            long topNCount,
+            List<SortItem> sortItems,
+            Map<String, ColumnHandle> assignments) {
+        PulsarTableHandle tableHandle = convertTableHandle(handle);
+        if (tableHandle.getLimit().isPresent() || tableHandle.isAggregated() || sortItems.size() != 1) {
+            return Optional.empty();
+        }
+        SortItem sortItem = sortItems.get(0);
+        if (sortItem.getSortOrder() != SortOrder.DESC_NULLS_LAST
+                || !isInternalColumn(assignments.get(sortItem.getName()), PulsarInternalColumn.PUBLISH_TIME)) {
+            return Optional.empty();
+        }
+        return Optional.of(new TopNApplicationResult<>(tableHandle.withLatestByPublishTime(topNCount), false, false));
+    }
+
+    /**
+     * Push down count(*) and min/max of __publish_time__, globally or grouped by __partition__. A single split
+     * answers the whole aggregation from the first and last entries of every partition, see
+     * {@link PulsarAggregationPageSource}.
+     */
+    @Override
+    public Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<List<ColumnHandle>> groupingSets) {
+        PulsarTableHandle tableHandle = convertTableHandle(handle);
+        // the rows must be neither filtered nor limited by the scan
+        if (tableHandle.isAggregated() || !tableHandle.getConstraint().isAll() || tableHandle.getLimit().isPresent()
+                || groupingSets.size() != 1) {
+            return Optional.empty();
+        }
+
+        List<ColumnHandle> groupingSet = groupingSets.get(0);
+        boolean groupedByPartition = !groupingSet.isEmpty();
+        if (groupedByPartition && (groupingSet.size() != 1 || !isInternalColumn(groupingSet.get(0),
+                PulsarInternalColumn.PARTITION))) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<ConnectorExpression> projections = ImmutableList.builder();
+        ImmutableList.Builder<Assignment> resultAssignments = ImmutableList.builder();
+        ImmutableList.Builder<PulsarAggregateColumnHandle> aggregateColumns = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            AggregateFunction aggregate = aggregates.get(i);
+            Optional<PulsarAggregateColumnHandle.Function> function = aggregateFunction(aggregate, assignments);
+            if (function.isEmpty()) {
+                return Optional.empty();
+            }
+            String name = "_pulsar_aggregate_" + i;
+            PulsarAggregateColumnHandle column = new PulsarAggregateColumnHandle(name, function.get(),
+                    aggregate.getOutputType());
+            aggregateColumns.add(column);
+            projections.add(new Variable(name, aggregate.getOutputType()));
+            resultAssignments.add(new Assignment(name, column, aggregate.getOutputType()));
+        }
+
+        Map<ColumnHandle, ColumnHandle> groupingColumnMapping = groupedByPartition
+                ? ImmutableMap.of(groupingSet.get(0), groupingSet.get(0)) : ImmutableMap.of();
+        return Optional.of(new AggregationApplicationResult<>(
+                tableHandle.withAggregation(aggregateColumns.build(), groupedByPartition),
+                projections.build(),
+                resultAssignments.build(),
+                groupingColumnMapping,
+                false));
+    }
+
+    private static Optional<PulsarAggregateColumnHandle.Function> aggregateFunction(AggregateFunction aggregate,
+                                                                                   Map<String, ColumnHandle> assignments) {
+        if (aggregate.isDistinct() || aggregate.getFilter().isPresent() || !aggregate.getSortItems().isEmpty()) {
+            return Optional.empty();
+        }
+        String functionName = aggregate.getFunctionName();
+        List<ConnectorExpression> arguments = aggregate.getArguments();
+        if (functionName.equals("count") && arguments.isEmpty()) {
+            return Optional.of(PulsarAggregateColumnHandle.Function.COUNT);
+        }
+        if (arguments.size() != 1 || !(arguments.get(0) instanceof Variable)) {
+            return Optional.empty();
+        }
+        ColumnHandle argument = assignments.get(((Variable) arguments.get(0)).getName());
+        if (!isInternalColumn(argument, PulsarInternalColumn.PUBLISH_TIME)) {
+            return Optional.empty();
+        }
+        if (functionName.equals("min")) {
+            return Optional.of(PulsarAggregateColumnHandle.Function.MIN_PUBLISH_TIME);
+        }
+        if (functionName.equals("max")) {
+            return Optional.of(PulsarAggregateColumnHandle.Function.MAX_PUBLISH_TIME);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isInternalColumn(ColumnHandle columnHandle, PulsarInternalColumn internalColumn) {
+        return columnHandle instanceof PulsarColumnHandle
+                && ((PulsarColumnHandle) columnHandle).isInternal()
+                && ((PulsarColumnHandle) columnHandle).getName().equals(internalColumn.getName());
+    }
+
+    private Optional<PulsarColumnHandle> projectColumn(PulsarColumnHandle baseColumn,
+                                                       List<Integer> dereferenceIndices) {
+        if (baseColumn.isInternal() || baseColumn.getMapping() == null) {
+            return Optional.empty();
+        }
+        Type type = baseColumn.getType();
+        StringBuilder name = new StringBuilder(baseColumn.getName());
+        StringBuilder mapping = new StringBuilder(baseColumn.getMapping());
+        for (int index : dereferenceIndices) {
+            RowType.Field field = ((RowType) type).getFields().get(index);
+            if (field.getName().isEmpty()) {
+                return Optional.empty();
+            }
+            String fieldName = field.getName().get();
+            name.append('#').append(fieldName);
+            mapping.append('/').append(fieldName);
+            type = field.getType();
+        }
+        return Optional.of(new PulsarColumnHandle(
+                connectorId,
+                name.toString(),
+                type,
+                false,
+                false,
+                mapping.toString(),
+                null,
+                null,
+                baseColumn.getHandleKeyValueType()));
+    }
+
     private ConnectorTableMetadata getTableMetadata(ConnectorSession session, SchemaTableName schemaTableName,
                                                     boolean withInternalColumns) {
 
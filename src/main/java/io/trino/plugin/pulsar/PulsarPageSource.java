@@ -0,0 +1,316 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.LazyBlock;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Columnar page source for a Pulsar split.
+ *
+ * <p>Messages are read and decoded by {@link PulsarRecordCursor}. Internal columns are written eagerly,
+ * straight from the metadata of the current message into the block builders of the page. Columns decoded
+ * from the message payload are returned as {@link LazyBlock}s: the page keeps the parsed records of its rows
+ * and a column is only extracted from them, into one reused value holder, when the engine loads its block,
+ * so columns of pages rejected by a filter are never extracted. The records are estimated by the size of the
+ * payloads they were parsed from: they are counted in the memory usage while the page is built, and a page is
+ * returned once they reach the size of a page. Decoded values are written through a writer
+ * that is resolved once per column from the column's Java type, so no value provider or type check is
+ * involved per cell.
+ *
+ * <p>If no column other than the publish time is projected, the cursor counts the messages of the split
+ * from the entry metadata and the page source returns pages of positions only, or with the publish time
+ * written once per run of messages sharing it. Each split thereby returns the input of the partial count
+ * and min or max aggregations of the engine without parsing its messages, for the aggregations that are not
+ * pushed down into a {@link PulsarAggregationPageSource}, e.g. when a predicate remains on the table.
+ *
+ * <p>The page source never waits for messages: when none is available it returns what it has and
+ * reports a future from {@link #isBlocked()} that is completed by the split's reading pipeline.
+ */
+public class PulsarPageSource
+        implements ConnectorPageSource
+{
+    private static final int ROWS_PER_REQUEST = 4096;
+    // bound the number of parsed records a page keeps for its lazy columns, and the bytes of the payloads they
+    // were parsed from
+    private static final int MAX_LAZY_PAGE_POSITIONS = 8192;
+    private static final long MAX_LAZY_PAGE_RECORD_BYTES = DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+    private static final int MAX_COUNT_PAGE_POSITIONS = 64 * 1024;
+
+    private final PulsarRecordCursor cursor;
+    private final List<Type> types;
+    private final ColumnWriter[] columnWriters;
+    private final boolean[] lazyColumns;
+    private final boolean hasLazyColumns;
+    private final int[] eagerChannels;
+    private final PageBuilder pageBuilder;
+    private boolean finished;
+
+    // decode plan and records of the rows of the current page, for the lazy columns
+    private PulsarRecordCursor.DecodePlan[] plans = new PulsarRecordCursor.DecodePlan[0];
+    private Object[] keyRecords = new Object[0];
+    private Object[] valueRecords = new Object[0];
+    private long recordBytes;
+
+    public PulsarPageSource(PulsarRecordCursor cursor, List<PulsarColumnHandle> columnHandles)
+    {
+        this.cursor = requireNonNull(cursor, "cursor is null");
+        requireNonNull(columnHandles, "columnHandles is null");
+
+        this.types = columnHandles.stream()
+                .map(PulsarColumnHandle::getType)
+                .collect(toImmutableList());
+        this.columnWriters = new ColumnWriter[types.size()];
+        this.lazyColumns = new boolean[types.size()];
+        this.eagerChannels = new int[types.size()];
+        ImmutableList.Builder<Type> eagerTypes = ImmutableList.builder();
+        int eagerChannelCount = 0;
+        boolean hasLazyColumns = false;
+        for (int i = 0; i < types.size(); i++) {
+            columnWriters[i] = createColumnWriter(types.get(i));
+            lazyColumns[i] = cursor.isDecodedField(i);
+            if (lazyColumns[i]) {
+                hasLazyColumns = true;
+                eagerChannels[i] = -1;
+            }
+            else {
+                eagerChannels[i] = eagerChannelCount++;
+                eagerTypes.add(types.get(i));
+            }
+        }
+        this.hasLazyColumns = hasLazyColumns;
+        this.pageBuilder = new PageBuilder(eagerTypes.build());
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return cursor.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return cursor.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished && pageBuilder.isEmpty();
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (cursor.isCountOnly()) {
+            return getNextCountPage();
+        }
+
+        boolean blocked = false;
+        if (!finished) {
+            for (int i = 0; i < ROWS_PER_REQUEST && !isPageFull(); i++) {
+                if (!cursor.tryAdvanceNextPosition()) {
+                    finished = cursor.isFinished();
+                    blocked = !finished;
+                    break;
+                }
+                appendRow();
+            }
+        }
+
+        // only return a page if the buffer is full, we are finishing or waiting for more messages
+        if (isPageFull() || (!pageBuilder.isEmpty() && (finished || blocked))) {
+            return buildPage();
+        }
+        return null;
+    }
+
+    /**
+     * No column other than the publish time is projected: the rows are counted by the cursor and returned as
+     * pages without blocks, or with the publish time of the rows.
+     */
+    private Page getNextCountPage()
+    {
+        if (finished) {
+            return null;
+        }
+        if (types.isEmpty()) {
+            int positionCount = cursor.tryAdvanceCountedRows(MAX_COUNT_PAGE_POSITIONS);
+            if (positionCount == 0) {
+                finished = cursor.isFinished();
+                return null;
+            }
+            return new Page(positionCount);
+        }
+
+        while (!pageBuilder.isFull() && pageBuilder.getPositionCount() < MAX_COUNT_PAGE_POSITIONS) {
+            // the rows taken share one publish time
+            int rows = cursor.tryAdvanceCountedRows(MAX_COUNT_PAGE_POSITIONS - pageBuilder.getPositionCount());
+            if (rows == 0) {
+                finished = cursor.isFinished();
+                break;
+            }
+            for (int column = 0; column < types.size(); column++) {
+                cursor.writeInternalColumn(column, pageBuilder.getBlockBuilder(column), rows);
+            }
+            pageBuilder.declarePositions(rows);
+        }
+        return pageBuilder.isEmpty() ? null : buildPage();
+    }
+
+    private boolean isPageFull()
+    {
+        return pageBuilder.isFull()
+                || (hasLazyColumns && (pageBuilder.getPositionCount() >= MAX_LAZY_PAGE_POSITIONS || recordBytes >= MAX_LAZY_PAGE_RECORD_BYTES));
+    }
+
+    private void appendRow()
+    {
+        int position = pageBuilder.getPositionCount();
+        pageBuilder.declarePosition();
+        for (int column = 0; column < columnWriters.length; column++) {
+            if (!lazyColumns[column]) {
+                cursor.writeInternalColumn(column, pageBuilder.getBlockBuilder(eagerChannels[column]));
+            }
+        }
+
+        if (hasLazyColumns) {
+            if (position == plans.length) {
+                int capacity = Math.max(64, position * 2);
+                plans = Arrays.copyOf(plans, capacity);
+                keyRecords = Arrays.copyOf(keyRecords, capacity);
+                valueRecords = Arrays.copyOf(valueRecords, capacity);
+            }
+            plans[position] = cursor.getCurrentDecodePlan();
+            keyRecords[position] = cursor.getCurrentKeyRecord();
+            valueRecords[position] = cursor.getCurrentValueRecord();
+            recordBytes += cursor.getCurrentRecordSize();
+        }
+    }
+
+    private Page buildPage()
+    {
+        int positionCount = pageBuilder.getPositionCount();
+        Page eagerPage = pageBuilder.build();
+        pageBuilder.reset();
+        if (!hasLazyColumns) {
+            return eagerPage;
+        }
+
+        PulsarRecordCursor.DecodePlan[] pagePlans = Arrays.copyOf(plans, positionCount);
+        Object[] pageKeyRecords = Arrays.copyOf(keyRecords, positionCount);
+        Object[] pageValueRecords = Arrays.copyOf(valueRecords, positionCount);
+        Arrays.fill(plans, 0, positionCount, null);
+        Arrays.fill(keyRecords, 0, positionCount, null);
+        Arrays.fill(valueRecords, 0, positionCount, null);
+        recordBytes = 0;
+
+        Block[] blocks = new Block[types.size()];
+        for (int column = 0; column < blocks.length; column++) {
+            if (lazyColumns[column]) {
+                int field = column;
+                blocks[column] = new LazyBlock(positionCount,
+                        () -> loadColumn(field, positionCount, pagePlans, pageKeyRecords, pageValueRecords));
+            }
+            else {
+                blocks[column] = eagerPage.getBlock(eagerChannels[column]);
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private Block loadColumn(
+            int field,
+            int positionCount,
+            PulsarRecordCursor.DecodePlan[] pagePlans,
+            Object[] pageKeyRecords,
+            Object[] pageValueRecords)
+    {
+        BlockBuilder output = types.get(field).createBlockBuilder(null, positionCount);
+        PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+        for (int position = 0; position < positionCount; position++) {
+            pagePlans[position].decodeColumn(pageKeyRecords[position], pageValueRecords[position], field, value);
+            if (value.isNull()) {
+                output.appendNull();
+            }
+            else {
+                columnWriters[field].write(value, output);
+            }
+        }
+        return output.build();
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (finished) {
+            return NOT_BLOCKED;
+        }
+        return cursor.isBlocked();
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        // the records kept for the lazy columns of the current page
+        return pageBuilder.getRetainedSizeInBytes() + recordBytes + cursor.getMemoryUsage();
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+        cursor.close();
+    }
+
+    private static ColumnWriter createColumnWriter(Type type)
+    {
+        Class<?> javaType = type.getJavaType();
+        if (javaType == long.class) {
+            return (value, output) -> type.writeLong(output, value.getLong());
+        }
+        if (javaType == double.class) {
+            return (value, output) -> type.writeDouble(output, value.getDouble());
+        }
+        if (javaType == boolean.class) {
+            return (value, output) -> type.writeBoolean(output, value.getBoolean());
+        }
+        if (javaType == Slice.class) {
+            return (value, output) -> type.writeSlice(output, value.getSlice());
+        }
+        return (value, output) -> type.writeObject(output, value.getBlock());
+    }
+
+    @FunctionalInterface
+    private interface ColumnWriter
+    {
+        void write(PulsarFieldValueHolder value, BlockBuilder output);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.connector.DynamicFilter;
+
+import org.apache.pulsar.common.naming.NamespaceName;
+
+import javax.inject.Inject;
+
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.plugin.pulsar.PulsarErrorCode.PULSAR_SPLIT_ERROR;
+import static java.util.Objects.requireNonNull;
+
+public class PulsarPageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private final PulsarConnectorConfig pulsarConnectorConfig;
+
+    private final PulsarDispatchingRowDecoderFactory decoderFactory;
+
+    @Inject
+    public PulsarPageSourceProvider(
+            PulsarConnectorConfig pulsarConnectorConfig,
+            PulsarDispatchingRowDecoderFactory decoderFactory)
+    {
+        this.pulsarConnectorConfig = requireNonNull(pulsarConnectorConfig, "pulsarConnectorConfig is null");
+        this.decoderFactory = requireNonNull(decoderFactory, "decoderFactory is null");
+        requireNonNull(this.pulsarConnectorConfig.getWebServiceUrl(), "web-service-url is null");
+        requireNonNull(this.pulsarConnectorConfig.getZookeeperUri(), "zookeeper-uri is null");
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableHandle table,
+            List<ColumnHandle> columns,
+            DynamicFilter dynamicFilter)
+    {
+        requireNonNull(split, "Connector split is null");
+        if (split instanceof PulsarAggregationSplit) {
+            // counts without a broker index fall back to count-only cursors, which project no column
+            return new PulsarAggregationPageSource(columns, (PulsarAggregationSplit) split, this::createLedgerBounds,
+                    rangeSplit -> new PulsarRecordCursor(ImmutableList.of(), rangeSplit, pulsarConnectorConfig, decoderFactory));
+        }
+        PulsarSplit pulsarSplit = (PulsarSplit) split;
+
+        List<PulsarColumnHandle> pulsarColumns = columns.stream()
+                .map(PulsarColumnHandle.class::cast)
+                .collect(toImmutableList());
+
+        PulsarTableHandle tableHandle = (PulsarTableHandle) table;
+        if (tableHandle.isLatestByPublishTime()) {
+            return new PulsarTailPageSource(pulsarSplit, tableHandle.getLimit().getAsLong(), createTailWindows(pulsarSplit),
+                    window -> new PulsarPageSource(
+                            new PulsarRecordCursor(pulsarColumns, window, pulsarConnectorConfig, decoderFactory),
+                            pulsarColumns));
+        }
+        PulsarRecordCursor cursor = new PulsarRecordCursor(pulsarColumns, pulsarSplit, pulsarConnectorConfig, decoderFactory,
+                tableHandle.getLimit());
+        return new PulsarPageSource(cursor, pulsarColumns);
+    }
+
+    private PulsarTailWindows createTailWindows(PulsarSplit split)
+    {
+        try {
+            PulsarConnectorCache pulsarConnectorCache = PulsarConnectorCache.getConnectorCache(pulsarConnectorConfig);
+            return new PulsarTailWindows(pulsarConnectorCache.getManagedLedgerFactory(),
+                    pulsarConnectorCache.getManagedLedgerConfig(NamespaceName.get(split.getSchemaName()),
+                            split.getOffloadPolicies(), pulsarConnectorConfig));
+        }
+        catch (Exception e) {
+            throw new TrinoException(PULSAR_SPLIT_ERROR, "Failed to resolve the tail windows of split " + split, e);
+        }
+    }
+
+    private PulsarLedgerBounds createLedgerBounds(PulsarSplit split)
+    {
+        try {
+            PulsarConnectorCache pulsarConnectorCache = PulsarConnectorCache.getConnectorCache(pulsarConnectorConfig);
+            return new PulsarLedgerBounds(pulsarConnectorCache.getManagedLedgerFactory(),
+                    pulsarConnectorCache.getManagedLedgerConfig(NamespaceName.get(split.getSchemaName()),
+                            split.getOffloadPolicies(), pulsarConnectorConfig));
+        }
+        catch (Exception e) {
+            throw new TrinoException(PULSAR_SPLIT_ERROR, "Failed to read the entry bounds of split " + split, e);
+        }
+    }
+}
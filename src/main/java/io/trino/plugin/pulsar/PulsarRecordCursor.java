@@ -14,33 +14,54 @@
 package io.trino.plugin.pulsar;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static io.trino.decoder.FieldValueProviders.bytesValueProvider;
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.trino.decoder.FieldValueProviders.longValueProvider;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.annotations.VisibleForTesting;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.util.Recycler;
 import io.netty.util.ReferenceCountUtil;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
+import io.trino.plugin.pulsar.util.CacheSizeAllocator;
+import io.trino.plugin.pulsar.util.NoStrictCacheSizeAllocator;
+import io.trino.plugin.pulsar.util.NullCacheSizeAllocator;
+import io.trino.plugin.pulsar.util.WorkerCacheSizeAllocator;
 import io.trino.spi.block.Block;
-import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.connector.RecordCursor;
 import io.trino.spi.type.Type;
 import java.io.IOException;
-import java.util.HashMap;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.bookkeeper.mledger.AsyncCallbacks;
@@ -55,6 +76,7 @@ import org.apache.bookkeeper.mledger.impl.ReadOnlyCursorImpl;
 import org.apache.pulsar.client.api.PulsarClientException;
 import org.apache.pulsar.client.api.Schema;
 import org.apache.pulsar.client.impl.schema.KeyValueSchemaInfo;
+import org.apache.pulsar.common.api.proto.MessageMetadata;
 import org.apache.pulsar.common.api.raw.MessageParser;
 import org.apache.pulsar.common.api.raw.RawMessage;
 import org.apache.pulsar.common.api.raw.RawMessageIdImpl;
@@ -62,15 +84,13 @@ import org.apache.pulsar.common.api.raw.RawMessageImpl;
 import org.apache.pulsar.common.naming.NamespaceName;
 import org.apache.pulsar.common.naming.TopicName;
 import org.apache.pulsar.common.policies.data.OffloadPoliciesImpl;
+import org.apache.pulsar.common.protocol.Commands;
 import org.apache.pulsar.common.protocol.schema.BytesSchemaVersion;
 import org.apache.pulsar.common.schema.KeyValue;
 import org.apache.pulsar.common.schema.KeyValueEncodingType;
 import org.apache.pulsar.common.schema.SchemaInfo;
 import org.apache.pulsar.common.schema.SchemaType;
 import org.apache.pulsar.common.util.collections.ConcurrentOpenHashMap;
-import org.apache.pulsar.sql.presto.util.CacheSizeAllocator;
-import org.apache.pulsar.sql.presto.util.NoStrictCacheSizeAllocator;
-import org.apache.pulsar.sql.presto.util.NullCacheSizeAllocator;
 import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.SpscArrayQueue;
 
@@ -84,15 +104,19 @@ public class PulsarRecordCursor implements RecordCursor {
     private PulsarSplit pulsarSplit;
     private PulsarConnectorConfig pulsarConnectorConfig;
     private ReadOnlyCursor cursor;
+    private ManagedLedgerFactory managedLedgerFactory;
+    private ManagedLedgerConfig managedLedgerConfig;
     private SpscArrayQueue<RawMessage> messageQueue;
     private CacheSizeAllocator messageQueueCacheSizeAllocator;
     private SpscArrayQueue<Entry> entryQueue;
     private CacheSizeAllocator entryQueueCacheSizeAllocator;
     private RawMessage currentMessage;
-    private int maxBatchSize;
-    private long completedBytes = 0;
+    private PulsarSplitReadController readController;
+    // written by the deserializer runs on the shared executor, read by the consumer
+    private final AtomicLong completedBytes = new AtomicLong();
     private ReadEntries readEntries;
     private DeserializeEntries deserializeEntries;
+    private Executor deserializationExecutor;
     private TopicName topicName;
     private PulsarConnectorMetricsTracker metricsTracker;
     private boolean readOffloaded;
@@ -104,24 +128,80 @@ public class PulsarRecordCursor implements RecordCursor {
     // but not been deserialized and added messages to the message queue can be missed if we just check if the queues
     // are empty or not
     private final long splitSize;
-    private long entriesProcessed = 0;
+    // updated by the deserializer and by the reads skipping offloaded ledgers, read by the consumer
+    private final AtomicLong entriesProcessed = new AtomicLong();
+    // entries handed to the deserializer or skipped, counted before they are handed over
+    private final AtomicLong entriesDelivered = new AtomicLong();
     private int partition = -1;
     private volatile Throwable deserializingError;
 
+    // completed by the reading and deserializing side whenever the consumer may be able to make progress
+    private volatile CompletableFuture<Void> messageAvailable;
+
+    private static final CompletableFuture<Void> NOT_BLOCKED = completedFuture(null);
+
     private PulsarSqlSchemaInfoProvider schemaInfoProvider;
 
-    private FieldValueProvider[] currentRowValues = null;
+    // bound once per split to the internal column values or to a DecodedColumnValue
+    private PulsarFieldValueHolder[] currentRowValues = null;
+    // per split column, the internal column it reads, or null if it is decoded from the payload
+    private InternalField[] internalFields;
+
+    private static final byte[] EMPTY_SCHEMA_VERSION = new byte[0];
+
+    private static final ObjectWriter PROPERTIES_WRITER = new ObjectMapper().writer();
+    private static final Slice EMPTY_PROPERTIES = utf8Slice("{}");
+
+    // non-internal columns decoded from the message, by the part of the message they are decoded from
+    private Set<DecoderColumnHandle> messageColumnHandles;
+    private Set<DecoderColumnHandle> keyColumnHandles;
+    private Set<DecoderColumnHandle> valueColumnHandles;
+    private DecodePlan decodePlan;
+    private byte[] decodePlanSchemaVersion;
+    // predicate of the split, evaluated on every row before it is returned
+    private PulsarTupleDomainFilter tupleDomainFilter;
+    // part of the predicate answered by the message headers, evaluated before messages are queued
+    private PulsarMessageHeaderFilter messageHeaderFilter;
+    // false if only internal columns are projected, the payload is then never decoded
+    private boolean payloadProjected;
+    // true if no column other than the publish time is projected, rows are then counted by the deserializer
+    // from the entry headers instead of queued as messages
+    private boolean countOnly;
+    private final AtomicLong countedRows = new AtomicLong();
+    // count-only mode with the publish time projected: the counted rows, in runs sharing one publish time,
+    // queued before they are added to countedRows
+    private Queue<PublishTimeRun> publishTimeRuns;
+    private PublishTimeRun currentRun;
+    // the split finishes once it returned this many rows
+    private long rowLimit = Long.MAX_VALUE;
+    private long rowsReturned;
+    // records of the current row returned by the decoders of the decode plan
+    private Object currentKeyRecord;
+    // bytes of the payload the current records were decoded from
+    private int currentRecordSize;
+    private Object currentValueRecord;
+    private long currentRowId;
 
     PulsarDispatchingRowDecoderFactory decoderFactory;
 
     protected ConcurrentOpenHashMap<String, ChunkedMessageCtx> chunkedMessagesMap =
             ConcurrentOpenHashMap.<String, ChunkedMessageCtx>newBuilder().build();
+    // uuids of the incomplete chunked messages from the oldest, and the bytes of their chunks
+    private final ArrayDeque<String> chunkedMessageOrder = new ArrayDeque<>();
+    private long chunkedMessageBytes;
 
     private static final Logger log = Logger.get(PulsarRecordCursor.class);
 
     public PulsarRecordCursor(List<PulsarColumnHandle> columnHandles, PulsarSplit pulsarSplit,
                               PulsarConnectorConfig pulsarConnectorConfig,
                               PulsarDispatchingRowDecoderFactory decoderFactory) {
+        this(columnHandles, pulsarSplit, pulsarConnectorConfig, decoderFactory, OptionalLong.empty());
+    }
+
+    public PulsarRecordCursor(List<PulsarColumnHandle> columnHandles, PulsarSplit pulsarSplit,
+                              PulsarConnectorConfig pulsarConnectorConfig,
+                              PulsarDispatchingRowDecoderFactory decoderFactory, OptionalLong limit) {
+        this.rowLimit = limit.orElse(Long.MAX_VALUE);
         this.splitSize = pulsarSplit.getSplitSize();
         // Set start time for split
         this.startTime = System.nanoTime();
@@ -148,29 +228,54 @@ public class PulsarRecordCursor implements RecordCursor {
                         pulsarConnectorConfig),
                 new PulsarConnectorMetricsTracker(pulsarConnectorCache.getStatsProvider()));
         this.decoderFactory = decoderFactory;
-        initEntryCacheSizeAllocator(pulsarConnectorConfig);
+        this.deserializationExecutor = pulsarConnectorCache.getDeserializationExecutor();
+        initEntryCacheSizeAllocator(pulsarConnectorConfig, pulsarConnectorCache.getWorkerCacheSizeAllocator());
     }
 
     // Exposed for testing purposes
     PulsarRecordCursor(List<PulsarColumnHandle> columnHandles, PulsarSplit pulsarSplit, PulsarConnectorConfig
             pulsarConnectorConfig, ManagedLedgerFactory managedLedgerFactory, ManagedLedgerConfig managedLedgerConfig,
                        PulsarConnectorMetricsTracker pulsarConnectorMetricsTracker,
-                       PulsarDispatchingRowDecoderFactory decoderFactory) {
+                       PulsarDispatchingRowDecoderFactory decoderFactory, Executor deserializationExecutor) {
         this.splitSize = pulsarSplit.getSplitSize();
         initialize(columnHandles, pulsarSplit, pulsarConnectorConfig, managedLedgerFactory, managedLedgerConfig,
             pulsarConnectorMetricsTracker);
         this.decoderFactory = decoderFactory;
+        this.deserializationExecutor = deserializationExecutor;
+        initEntryCacheSizeAllocator(pulsarConnectorConfig, Optional.empty());
     }
 
     private void initialize(List<PulsarColumnHandle> columnHandles, PulsarSplit pulsarSplit, PulsarConnectorConfig
         pulsarConnectorConfig, ManagedLedgerFactory managedLedgerFactory, ManagedLedgerConfig managedLedgerConfig,
                             PulsarConnectorMetricsTracker pulsarConnectorMetricsTracker) {
         this.columnHandles = columnHandles;
-        this.currentRowValues = new FieldValueProvider[columnHandles.size()];
+        this.currentRowValues = new PulsarFieldValueHolder[columnHandles.size()];
+        this.internalFields = new InternalField[columnHandles.size()];
+        for (int i = 0; i < currentRowValues.length; i++) {
+            currentRowValues[i] = new PulsarFieldValueHolder();
+            if (columnHandles.get(i).isInternal()) {
+                internalFields[i] = InternalField.of(columnHandles.get(i).getName());
+                currentRowValues[i].setProvider(internalColumnValue(internalFields[i]));
+            } else {
+                currentRowValues[i].setProvider(new DecodedColumnValue(i));
+            }
+        }
+        this.messageColumnHandles = decodedColumns(columnHandles, PulsarColumnHandle.HandleKeyValueType.NONE);
+        this.keyColumnHandles = decodedColumns(columnHandles, PulsarColumnHandle.HandleKeyValueType.KEY);
+        this.valueColumnHandles = decodedColumns(columnHandles, PulsarColumnHandle.HandleKeyValueType.VALUE);
+        this.payloadProjected = !messageColumnHandles.isEmpty() || !keyColumnHandles.isEmpty()
+                || !valueColumnHandles.isEmpty();
+        this.tupleDomainFilter = PulsarTupleDomainFilter.create(columnHandles, pulsarSplit.getTupleDomain());
+        this.messageHeaderFilter = PulsarMessageHeaderFilter.create(pulsarSplit.getTupleDomain());
+        this.countOnly = messageHeaderFilter.isEntryLevel()
+                && Arrays.stream(internalFields).allMatch(field -> field == InternalField.PUBLISH_TIME);
+        if (countOnly && !columnHandles.isEmpty()) {
+            this.publishTimeRuns = new ConcurrentLinkedQueue<>();
+        }
         this.pulsarSplit = pulsarSplit;
         this.partition = TopicName.getPartitionIndex(pulsarSplit.getTableName());
         this.pulsarConnectorConfig = pulsarConnectorConfig;
-        this.maxBatchSize = pulsarConnectorConfig.getMaxEntryReadBatchSize();
+        this.readController = new PulsarSplitReadController(pulsarConnectorConfig);
         this.messageQueue = new SpscArrayQueue<>(pulsarConnectorConfig.getMaxSplitMessageQueueSize());
         this.entryQueue = new SpscArrayQueue<>(pulsarConnectorConfig.getMaxSplitEntryQueueSize());
         this.topicName = TopicName.get("persistent",
@@ -178,8 +283,9 @@ public class PulsarRecordCursor implements RecordCursor {
                 pulsarSplit.getTableName());
         this.metricsTracker = pulsarConnectorMetricsTracker;
         this.readOffloaded = pulsarConnectorConfig.getManagedLedgerOffloadDriver() != null;
+        this.managedLedgerFactory = managedLedgerFactory;
+        this.managedLedgerConfig = managedLedgerConfig;
         this.pulsarConnectorConfig = pulsarConnectorConfig;
-        initEntryCacheSizeAllocator(pulsarConnectorConfig);
 
         try {
             this.schemaInfoProvider = new PulsarSqlSchemaInfoProvider(this.topicName,
@@ -201,6 +307,14 @@ public class PulsarRecordCursor implements RecordCursor {
         }
     }
 
+    private static Set<DecoderColumnHandle> decodedColumns(List<PulsarColumnHandle> columnHandles,
+                                                           PulsarColumnHandle.HandleKeyValueType handleKeyValueType) {
+        return columnHandles.stream()
+                .filter(col -> !col.isInternal())
+                .filter(col -> handleKeyValueType.equals(col.getHandleKeyValueType()))
+                .collect(toImmutableSet());
+    }
+
     private ReadOnlyCursor getCursor(TopicName topicName, Position startPosition, ManagedLedgerFactory
             managedLedgerFactory, ManagedLedgerConfig managedLedgerConfig)
             throws ManagedLedgerException, InterruptedException {
@@ -213,7 +327,7 @@ public class PulsarRecordCursor implements RecordCursor {
 
     @Override
     public long getCompletedBytes() {
-        return this.completedBytes;
+        return this.completedBytes.get();
     }
 
     @Override
@@ -232,134 +346,461 @@ public class PulsarRecordCursor implements RecordCursor {
         this.schemaInfoProvider = schemaInfoProvider;
     }
 
+    /**
+     * Deserializes the entries of this split on the worker-wide {@link PulsarDeserializationExecutor}.
+     *
+     * <p>At most one run of the task is scheduled at a time. A run processes up to
+     * {@link #MAX_ENTRIES_PER_RUN} entries and then gives the thread back to other splits; it is
+     * rescheduled by {@link ReadEntries#readEntriesComplete} when new entries arrive and by the consumer
+     * when it drains the message queue. Messages that do not fit into the message queue are kept in
+     * {@code pendingMessages} until the consumer makes room, so a run never waits for the consumer.
+     *
+     * <p>With a deserialization parallelism above one, the entries are parsed and decompressed by
+     * separate {@link ParsedEntry} jobs on the same executor, and the run only moves the messages of
+     * completed entries to the message queue in entry order.
+     */
     @VisibleForTesting
-    class DeserializeEntries extends Thread {
+    class DeserializeEntries implements Runnable {
+
+        private static final int MAX_ENTRIES_PER_RUN = 16;
 
         private final AtomicBoolean isRunning;
 
         private final CompletableFuture<Void> closeHandle;
 
-        public DeserializeEntries() {
-            super("deserialize-thread-split-" + pulsarSplit.getSplitId());
+        // set while a run is scheduled or executing, and permanently once the task has been closed
+        private final AtomicBoolean scheduled;
+
+        // only accessed by the run holding the scheduled flag
+        private final ArrayDeque<RawMessage> pendingMessages = new ArrayDeque<>();
+
+        // published before the scheduled flag is cleared, read by the consumer
+        private volatile boolean waitingForMessageQueue;
+
+        // messages added to the message queue by the current run, reported to the read controller
+        private int runMessages;
+        private long runMessageBytes;
+
+        private final Executor executor;
+
+        private final int parallelism;
+
+        // entries handed to parse jobs, in read order; only accessed by the run holding the scheduled flag
+        private final ArrayDeque<ParsedEntry> parsingEntries = new ArrayDeque<>();
+
+        private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        public DeserializeEntries(Executor executor, int parallelism) {
+            this.executor = executor;
+            this.parallelism = parallelism;
             this.isRunning = new AtomicBoolean(false);
             this.closeHandle = new CompletableFuture<>();
+            this.scheduled = new AtomicBoolean(false);
         }
 
-        @Override
         public void start() {
             if (isRunning.compareAndSet(false, true)) {
-                super.start();
+                schedule();
             }
         }
 
         public CompletableFuture<Void> close() {
-            if (isRunning.compareAndSet(true, false)) {
-                super.interrupt();
-            }
+            isRunning.set(false);
+            completeCloseIfIdle();
             return closeHandle;
         }
 
+        /**
+         * Schedule a run unless one is already scheduled or executing.
+         */
+        void schedule() {
+            if (isRunning.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    deserializingError = e;
+                    signalMessageAvailable();
+                }
+            }
+        }
+
+        /**
+         * Called by the consumer after it polled a message, the pending messages may fit now.
+         */
+        void messageQueueDrained() {
+            if (waitingForMessageQueue) {
+                schedule();
+            }
+        }
+
         @Override
         public void run() {
+            long startCpuTime = threadMXBean.getCurrentThreadCpuTime();
             try {
-                while (isRunning.get()) {
-                    int read = entryQueue.drain(new MessagePassingQueue.Consumer<Entry>() {
-                        @Override
-                        public void accept(Entry entry) {
-
-                            try {
-                                entryQueueCacheSizeAllocator.release(entry.getLength());
-
-                                long bytes = entry.getDataBuffer().readableBytes();
-                                completedBytes += bytes;
-                                // register stats for bytes read
-                                metricsTracker.register_BYTES_READ(bytes);
-
-                                // check if we have processed all entries in this split
-                                // and no incomplete chunked messages exist
-                                if (entryExceedSplitEndPosition(entry) && chunkedMessagesMap.isEmpty()) {
-                                    return;
-                                }
-
-                                // set start time for time deserializing entries for stats
-                                metricsTracker.start_ENTRY_DESERIALIZE_TIME();
-
-                                try {
-                                    MessageParser.parseMessage(topicName, entry.getLedgerId(), entry.getEntryId(),
-                                            entry.getDataBuffer(), (message) -> {
-                                                try {
-                                                    // start time for message queue read
-                                                    metricsTracker.start_MESSAGE_QUEUE_ENQUEUE_WAIT_TIME();
-
-                                                    if (message.getNumChunksFromMsg() > 1)  {
-                                                        message = processChunkedMessages(message);
-                                                    } else if (entryExceedSplitEndPosition(entry)) {
-                                                        // skip no chunk or no multi chunk message
-                                                        // that exceed split end position
-                                                        message.release();
-                                                        message = null;
-                                                    }
-                                                    if (message != null) {
-                                                        while (true) {
-                                                            if (!haveAvailableCacheSize(
-                                                                    messageQueueCacheSizeAllocator, messageQueue)
-                                                                    || !messageQueue.offer(message)) {
-                                                                Thread.sleep(1);
-                                                            } else {
-                                                                messageQueueCacheSizeAllocator.allocate(
-                                                                        message.getData().readableBytes());
-                                                                break;
-                                                            }
-                                                        }
-                                                    }
-
-                                                    // stats for how long a read from message queue took
-                                                    metricsTracker.end_MESSAGE_QUEUE_ENQUEUE_WAIT_TIME();
-                                                    // stats for number of messages read
-                                                    metricsTracker.incr_NUM_MESSAGES_DESERIALIZED_PER_ENTRY();
-
-                                                } catch (InterruptedException e) {
-                                                    //no-op
-                                                }
-                                            }, pulsarConnectorConfig.getMaxMessageSize());
-                                } catch (IOException e) {
-                                    log.error(e, "Failed to parse message from pulsar topic %s", topicName.toString());
-                                    throw new RuntimeException(e);
-                                }
-                                // stats for time spend deserializing entries
-                                metricsTracker.end_ENTRY_DESERIALIZE_TIME();
-
-                                // stats for num messages per entry
-                                metricsTracker.end_NUM_MESSAGES_DESERIALIZED_PER_ENTRY();
-
-                            } finally {
-                                entriesProcessed++;
-                                entry.release();
-                            }
-                        }
-                    });
+                if (isRunning.get()) {
+                    deserialize();
+                }
+            } catch (Throwable ex) {
+                log.error(ex, "Stop running DeserializeEntries");
+                deserializingError = ex;
+                isRunning.set(false);
+                signalMessageAvailable();
+            } finally {
+                // stats for cpu time spent by the shared threads on this split
+                metricsTracker.register_DESERIALIZE_CPU_TIME(threadMXBean.getCurrentThreadCpuTime() - startCpuTime);
+                scheduled.set(false);
+            }
 
-                    if (read <= 0) {
-                        try {
-                            Thread.sleep(1);
-                        } catch (InterruptedException e) {
-                            return;
+            completeCloseIfIdle();
+            if (hasWork()) {
+                schedule();
+            }
+        }
+
+        private void deserialize() {
+            int read = 0;
+            if (flushPendingMessages()) {
+                if (parallelism > 1) {
+                    read = deserializeInParallel();
+                } else {
+                    while (read < MAX_ENTRIES_PER_RUN && pendingMessages.isEmpty() && isRunning.get()) {
+                        Entry entry = entryQueue.poll();
+                        if (entry == null) {
+                            break;
                         }
+                        processEntry(entry);
+                        read++;
                     }
                 }
+            }
+            // if messages are held back, wait for the consumer to make room in the message queue
+            waitingForMessageQueue = !pendingMessages.isEmpty();
+            readController.recordEntriesProcessed(read);
+            readController.recordMessages(runMessages, runMessageBytes);
+            runMessages = 0;
+            runMessageBytes = 0;
+            if (read > 0) {
+                // entries processed may have finished the split even if no message was produced
+                signalMessageAvailable();
+            }
+        }
+
+        private void processEntry(Entry entry) {
+            try {
+                entryQueueCacheSizeAllocator.release(entry.getLength());
+
+                if (!beginEntry(entry) || !matchesEntryHeaders(entry) || countEntry(entry)) {
+                    return;
+                }
+
+                // set start time for time deserializing entries for stats
+                metricsTracker.start_ENTRY_DESERIALIZE_TIME();
+
+                try {
+                    MessageParser.parseMessage(topicName, entry.getLedgerId(), entry.getEntryId(),
+                            entry.getDataBuffer(), (message) -> processMessage(entry, message),
+                            pulsarConnectorConfig.getMaxMessageSize());
+                } catch (IOException e) {
+                    log.error(e, "Failed to parse message from pulsar topic %s", topicName.toString());
+                    throw new RuntimeException(e);
+                }
+                // stats for time spend deserializing entries
+                metricsTracker.end_ENTRY_DESERIALIZE_TIME();
+
+                // stats for num messages per entry
+                metricsTracker.end_NUM_MESSAGES_DESERIALIZED_PER_ENTRY();
+
+            } finally {
+                entriesProcessed.incrementAndGet();
+                entry.release();
+            }
+        }
+
+        /**
+         * Evaluate the header domains shared by all messages of the entry, before the entry is decompressed.
+         */
+        private boolean matchesEntryHeaders(Entry entry) {
+            if (messageHeaderFilter.isAll()) {
+                return true;
+            }
+            MessageMetadata metadata = Commands.peekMessageMetadata(entry.getDataBuffer(), null, -1);
+            // entries without readable metadata fail when they are parsed
+            return metadata == null || messageHeaderFilter.matchesEntry(metadata);
+        }
+
+        /**
+         * In count-only mode, count the messages of a complete entry from its metadata without parsing it.
+         * Returns false if the entry has to be parsed.
+         */
+        private boolean countEntry(Entry entry) {
+            if (!countOnly || entryExceedSplitEndPosition(entry)) {
+                return false;
+            }
+            MessageMetadata metadata = Commands.peekMessageMetadata(entry.getDataBuffer(), null, -1);
+            if (metadata == null || (metadata.hasNumChunksFromMsg() && metadata.getNumChunksFromMsg() > 1)) {
+                return false;
+            }
+            // all messages of an entry share its publish time
+            countRows(metadata.getPublishTime(), metadata.hasNumMessagesInBatch() ? metadata.getNumMessagesInBatch() : 1);
+            return true;
+        }
+
+        /**
+         * Account for the entry, returns false if the entry is past the end of the split and no chunked
+         * message still needs it.
+         */
+        private boolean beginEntry(Entry entry) {
+            long bytes = entry.getDataBuffer().readableBytes();
+            completedBytes.addAndGet(bytes);
+            // register stats for bytes read
+            metricsTracker.register_BYTES_READ(bytes);
+
+            // check if we have processed all entries in this split
+            // and no incomplete chunked messages exist
+            return !(entryExceedSplitEndPosition(entry) && chunkedMessagesMap.isEmpty());
+        }
+
+        private void processMessage(Entry entry, RawMessage message) {
+            // start time for message queue read
+            metricsTracker.start_MESSAGE_QUEUE_ENQUEUE_WAIT_TIME();
+
+            if (message.getNumChunksFromMsg() > 1)  {
+                message = processChunkedMessages(message);
+            } else if (entryExceedSplitEndPosition(entry)) {
+                // skip no chunk or no multi chunk message
+                // that exceed split end position
+                message.release();
+                message = null;
+            }
+            if (message != null && !messageHeaderFilter.matches(message)) {
+                // rejected by the headers, the payload is never decoded
+                message.release();
+                message = null;
+            }
+            if (message != null && countOnly) {
+                countRows(message.getPublishTime(), 1);
+                message.release();
+                message = null;
+            }
+            if (message != null) {
+                enqueueMessage(message);
+            }
+
+            // stats for how long a read from message queue took
+            metricsTracker.end_MESSAGE_QUEUE_ENQUEUE_WAIT_TIME();
+            // stats for number of messages read
+            metricsTracker.incr_NUM_MESSAGES_DESERIALIZED_PER_ENTRY();
+        }
+
+        /**
+         * Parallel mode: hand entries to parse jobs on the executor, and move the messages of parsed
+         * entries to the message queue strictly in the order the entries were read.
+         */
+        private int deserializeInParallel() {
+            int read = 0;
+            while (pendingMessages.isEmpty() && !parsingEntries.isEmpty() && parsingEntries.peek().isDone()) {
+                completeParsedEntry(parsingEntries.poll());
+                read++;
+            }
+            while (pendingMessages.isEmpty() && parsingEntries.size() < parallelism && isRunning.get()) {
+                Entry entry = entryQueue.poll();
+                if (entry == null) {
+                    break;
+                }
+                entryQueueCacheSizeAllocator.release(entry.getLength());
+                ParsedEntry parsedEntry = new ParsedEntry(entry);
+                parsingEntries.add(parsedEntry);
+                if (!matchesEntryHeaders(entry) || countEntry(entry)) {
+                    // keep the entry in order for its accounting, without parsing it
+                    parsedEntry.skip();
+                    continue;
+                }
+                try {
+                    executor.execute(parsedEntry);
+                } catch (RejectedExecutionException e) {
+                    parsedEntry.fail(e);
+                }
+            }
+            return read;
+        }
+
+        private void completeParsedEntry(ParsedEntry parsedEntry) {
+            Entry entry = parsedEntry.entry;
+            try {
+                if (parsedEntry.failure != null) {
+                    parsedEntry.releaseMessages();
+                    log.error(parsedEntry.failure, "Failed to parse message from pulsar topic %s", topicName.toString());
+                    throw new RuntimeException(parsedEntry.failure);
+                }
+                if (!beginEntry(entry)) {
+                    parsedEntry.releaseMessages();
+                    return;
+                }
+                for (RawMessage message : parsedEntry.messages) {
+                    processMessage(entry, message);
+                }
+                // stats for num messages per entry
+                metricsTracker.end_NUM_MESSAGES_DESERIALIZED_PER_ENTRY();
+            } finally {
+                entriesProcessed.incrementAndGet();
+                entry.release();
+            }
+        }
+
+        private void enqueueMessage(RawMessage message) {
+            // keep the order of messages once one had to be held back
+            if (!pendingMessages.isEmpty() || !tryEnqueueMessage(message)) {
+                pendingMessages.add(message);
+            } else {
+                signalMessageAvailable();
+            }
+        }
+
+        /**
+         * Move the pending messages to the message queue, returns true if all of them fit.
+         */
+        private boolean flushPendingMessages() {
+            boolean flushed = false;
+            while (!pendingMessages.isEmpty()) {
+                if (!tryEnqueueMessage(pendingMessages.peek())) {
+                    break;
+                }
+                pendingMessages.poll();
+                flushed = true;
+            }
+            if (flushed) {
+                signalMessageAvailable();
+            }
+            return pendingMessages.isEmpty();
+        }
+
+        private boolean tryEnqueueMessage(RawMessage message) {
+            if (messageQueue.size() >= readController.getMessageQueueLimit()
+                    || !haveAvailableCacheSize(messageQueueCacheSizeAllocator, messageQueue)
+                    || !messageQueue.offer(message)) {
+                return false;
+            }
+            int bytes = message.getData().readableBytes();
+            messageQueueCacheSizeAllocator.allocate(bytes);
+            runMessages++;
+            runMessageBytes += bytes;
+            return true;
+        }
+
+        private boolean hasWork() {
+            if (!pendingMessages.isEmpty()) {
+                return haveAvailableCacheSize(messageQueueCacheSizeAllocator, messageQueue)
+                        && messageQueue.size() < readController.getMessageQueueLimit();
+            }
+            if (parallelism > 1) {
+                return (!parsingEntries.isEmpty() && parsingEntries.peek().isDone())
+                        || (parsingEntries.size() < parallelism && !entryQueue.isEmpty());
+            }
+            return !entryQueue.isEmpty();
+        }
+
+        private void completeCloseIfIdle() {
+            // the close handle is completed either by close() or by the last run, whichever takes the flag
+            if (!isRunning.get() && scheduled.compareAndSet(false, true)) {
+                pendingMessages.forEach(RawMessage::release);
+                pendingMessages.clear();
+                // jobs still parsing release their entry themselves once they see the task closed
+                parsingEntries.stream()
+                        .filter(ParsedEntry::isDone)
+                        .forEach(ParsedEntry::release);
+                parsingEntries.clear();
                 closeHandle.complete(null);
-            } catch (Throwable ex) {
-                log.error(ex, "Stop running DeserializeEntries");
-                closeHandle.completeExceptionally(ex);
-                throw ex;
             }
         }
+
+        /**
+         * Parse job for a single entry in parallel mode.
+         */
+        private class ParsedEntry implements Runnable {
+
+            private final Entry entry;
+            private final List<RawMessage> messages = new ArrayList<>();
+            private Throwable failure;
+            // written after messages and failure, so a reader seeing it set also sees the parse result
+            private volatile boolean done;
+            private final AtomicBoolean released = new AtomicBoolean(false);
+
+            ParsedEntry(Entry entry) {
+                this.entry = entry;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    MessageParser.parseMessage(topicName, entry.getLedgerId(), entry.getEntryId(),
+                            entry.getDataBuffer(), messages::add, pulsarConnectorConfig.getMaxMessageSize());
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                done = true;
+                if (!isRunning.get()) {
+                    release();
+                    return;
+                }
+                // let the split task move the messages to the message queue
+                schedule();
+            }
+
+            void fail(Throwable t) {
+                failure = t;
+                done = true;
+            }
+
+            void skip() {
+                done = true;
+            }
+
+            boolean isDone() {
+                return done;
+            }
+
+            void releaseMessages() {
+                messages.forEach(RawMessage::release);
+                messages.clear();
+            }
+
+            void release() {
+                if (released.compareAndSet(false, true)) {
+                    releaseMessages();
+                    entry.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the deserializer processed every entry handed to it.
+     */
+    private boolean isDeserializerDrained() {
+        return entriesProcessed.get() >= entriesDelivered.get();
+    }
+
+    private void signalMessageAvailable() {
+        CompletableFuture<Void> future = messageAvailable;
+        if (future != null) {
+            future.complete(null);
+        }
     }
 
     private boolean entryExceedSplitEndPosition(Entry entry) {
         return ((PositionImpl) entry.getPosition()).compareTo(pulsarSplit.getEndPosition()) >= 0;
     }
 
+    /**
+     * Issues the reads of this split.
+     *
+     * <p>With a read-ahead depth of one, a single batch is read at a time from {@code cursor}. With a larger
+     * depth, {@code cursor} only plans consecutive windows of entries, and up to {@code readAheadDepth} windows
+     * are read concurrently through dedicated lane cursors. Completed windows are handed to the entry queue
+     * strictly in window order, and the bytes of windows in flight are reserved in the entry queue's
+     * {@link CacheSizeAllocator} from the average entry size observed so far.
+     */
     @VisibleForTesting
     class ReadEntries implements AsyncCallbacks.ReadEntriesCallback {
 
@@ -369,43 +810,58 @@ public class PulsarRecordCursor implements RecordCursor {
         //num of outstanding read requests
         // set to 1 because we can only read one batch a time
         private final AtomicLong outstandingReadsRequests = new AtomicLong(1);
+        // number of entries requested by the outstanding single read
+        private volatile int requestedBatchSize;
+
+        // --- pipelined read-ahead, guarded by this ---
+        private final int readAheadDepth;
+        private final ArrayDeque<ReadOnlyCursor> idleLanes = new ArrayDeque<>();
+        private final List<ReadOnlyCursor> lanes = new ArrayList<>();
+        private final ArrayDeque<ReadWindow> retryWindows = new ArrayDeque<>();
+        private final TreeMap<Long, ReadWindow> completedWindows = new TreeMap<>();
+        private long nextWindowSequence;
+        private long nextWindowToDeliver;
+        private int windowsInFlight;
+        // entries requested or read but not yet handed to the entry queue
+        private long bufferedEntries;
+        private long averageEntrySize;
+        private boolean planningDone;
+
+        ReadEntries(int readAheadDepth) {
+            this.readAheadDepth = readAheadDepth;
+        }
 
         public void run() {
+            if (readAheadDepth > 1) {
+                runPipelined();
+                return;
+            }
 
             if (outstandingReadsRequests.get() > 0) {
-                if (!cursor.hasMoreEntries()
-                        || (((PositionImpl) cursor.getReadPosition()).compareTo(pulsarSplit.getEndPosition()) >= 0
-                        && chunkedMessagesMap.isEmpty())) {
-                    isDone = true;
-
+                if (atSplitEnd() && !readPastSplitEnd()) {
+                    if (finishedAtSplitEnd(false)) {
+                        isDone = true;
+                    }
                 } else {
-                    int batchSize = Math.min(maxBatchSize, entryQueue.capacity() - entryQueue.size());
+                    int batchSize = limitBatchSize(Math.min(readController.getBatchSize(),
+                            readController.getEntryQueueLimit() - entryQueue.size()));
 
                     if (batchSize > 0) {
 
-                        ReadOnlyCursorImpl readOnlyCursorImpl = ((ReadOnlyCursorImpl) cursor);
-                        // check if ledger is offloaded
-                        if (!readOffloaded && readOnlyCursorImpl.getCurrentLedgerInfo().hasOffloadContext()) {
-                            log.warn(
-                                "Ledger %s is offloaded for topic %s. Ignoring it because offloader is not configured",
-                                readOnlyCursorImpl.getCurrentLedgerInfo().getLedgerId(), pulsarSplit.getTableName());
-
-                            long numEntries = readOnlyCursorImpl.getCurrentLedgerInfo().getEntries();
-                            long entriesToSkip =
-                                    (numEntries - ((PositionImpl) cursor.getReadPosition()).getEntryId()) + 1;
-                            cursor.skipEntries(Math.toIntExact((entriesToSkip)));
-
-                            entriesProcessed += entriesToSkip;
-                        } else {
-                            if (!haveAvailableCacheSize(entryQueueCacheSizeAllocator, entryQueue)) {
-                                metricsTracker.incr_READ_ATTEMPTS_FAIL();
-                                return;
-                            }
-                            // if the available size is invalid and the entry queue size is 0, read one entry
-                            outstandingReadsRequests.decrementAndGet();
-                            cursor.asyncReadEntries(batchSize, entryQueueCacheSizeAllocator.getAvailableCacheSize(),
-                                    this, System.nanoTime(), PositionImpl.LATEST);
+                        if (skipOffloadedLedger()) {
+                            // stats for successful read request
+                            metricsTracker.incr_READ_ATTEMPTS_SUCCESS();
+                            return;
                         }
+                        if (!haveAvailableCacheSize(entryQueueCacheSizeAllocator, entryQueue)) {
+                            metricsTracker.incr_READ_ATTEMPTS_FAIL();
+                            return;
+                        }
+                        // if the available size is invalid and the entry queue size is 0, read one entry
+                        outstandingReadsRequests.decrementAndGet();
+                        requestedBatchSize = batchSize;
+                        cursor.asyncReadEntries(batchSize, entryQueueCacheSizeAllocator.getAvailableCacheSize(),
+                                this, System.nanoTime(), PositionImpl.LATEST);
 
                         // stats for successful read request
                         metricsTracker.incr_READ_ATTEMPTS_SUCCESS();
@@ -417,9 +873,172 @@ public class PulsarRecordCursor implements RecordCursor {
             }
         }
 
+        /**
+         * Whether {@code cursor} reached the end of the split or of the topic.
+         */
+        private boolean atSplitEnd() {
+            return !cursor.hasMoreEntries()
+                    || ((PositionImpl) cursor.getReadPosition()).compareTo(pulsarSplit.getEndPosition()) >= 0;
+        }
+
+        /**
+         * Past the end of the split, entries are only read to complete the chunked messages started in the split.
+         */
+        private boolean readPastSplitEnd() {
+            return cursor.hasMoreEntries() && !chunkedMessagesMap.isEmpty();
+        }
+
+        /**
+         * At the end of the split, returns true if no more entries have to be read. The entries that were read
+         * but not deserialized yet may start a chunked message continued past the end, so this is only decided
+         * once no read is in flight and the deserializer processed every entry read.
+         */
+        private boolean finishedAtSplitEnd(boolean readsInFlight) {
+            if (readsInFlight || !isDeserializerDrained()) {
+                return false;
+            }
+            // read after the processed entries, so the chunked messages they started are seen
+            return !readPastSplitEnd();
+        }
+
+        /**
+         * With a limit, read no more entries than rows are still needed, every entry has at least one message.
+         */
+        private int limitBatchSize(int batchSize) {
+            if (rowLimit == Long.MAX_VALUE) {
+                return batchSize;
+            }
+            return (int) Math.min(batchSize, Math.max(1, rowLimit - rowsReturned));
+        }
+
+        /**
+         * Skip the rest of the current ledger of {@code cursor} if it is offloaded and no offloader is configured.
+         */
+        private boolean skipOffloadedLedger() {
+            ReadOnlyCursorImpl readOnlyCursorImpl = ((ReadOnlyCursorImpl) cursor);
+            // check if ledger is offloaded
+            if (readOffloaded || !readOnlyCursorImpl.getCurrentLedgerInfo().hasOffloadContext()) {
+                return false;
+            }
+            log.warn(
+                "Ledger %s is offloaded for topic %s. Ignoring it because offloader is not configured",
+                readOnlyCursorImpl.getCurrentLedgerInfo().getLedgerId(), pulsarSplit.getTableName());
+
+            long numEntries = readOnlyCursorImpl.getCurrentLedgerInfo().getEntries();
+            long entriesToSkip =
+                    (numEntries - ((PositionImpl) cursor.getReadPosition()).getEntryId()) + 1;
+            cursor.skipEntries(Math.toIntExact((entriesToSkip)));
+
+            entriesDelivered.addAndGet(entriesToSkip);
+            entriesProcessed.addAndGet(entriesToSkip);
+            return true;
+        }
+
+        private synchronized void runPipelined() {
+            deliverCompletedWindows();
+            while (windowsInFlight < readAheadDepth) {
+                ReadWindow window = retryWindows.poll();
+                if (window == null) {
+                    window = planNextWindow();
+                }
+                if (window == null) {
+                    break;
+                }
+                readWindow(window);
+            }
+            isDone = planningDone && windowsInFlight == 0 && retryWindows.isEmpty() && completedWindows.isEmpty();
+        }
+
+        /**
+         * Take the next window of entries from {@code cursor}, or return null if nothing can be read right now.
+         */
+        private ReadWindow planNextWindow() {
+            if (planningDone) {
+                return null;
+            }
+            if (atSplitEnd() && !readPastSplitEnd()) {
+                planningDone = finishedAtSplitEnd(windowsInFlight > 0 || !completedWindows.isEmpty()
+                        || !retryWindows.isEmpty());
+                return null;
+            }
+
+            long queueRoom = readController.getEntryQueueLimit() - entryQueue.size() - bufferedEntries;
+            int numEntries = (int) Math.min(Math.min(limitBatchSize(readController.getBatchSize()), queueRoom),
+                    cursor.getNumberOfEntries());
+            if (numEntries <= 0) {
+                // stats for failed read request because entry queue is full
+                metricsTracker.incr_READ_ATTEMPTS_FAIL();
+                return null;
+            }
+            if (skipOffloadedLedger()) {
+                metricsTracker.incr_READ_ATTEMPTS_SUCCESS();
+                return null;
+            }
+            if (!haveAvailableCacheSize(entryQueueCacheSizeAllocator, entryQueue) && bufferedEntries > 0) {
+                metricsTracker.incr_READ_ATTEMPTS_FAIL();
+                return null;
+            }
+
+            PositionImpl start = (PositionImpl) cursor.getReadPosition();
+            cursor.skipEntries(numEntries);
+            return new ReadWindow(nextWindowSequence++, start, numEntries);
+        }
+
+        private void readWindow(ReadWindow window) {
+            ReadOnlyCursor lane = idleLanes.poll();
+            if (lane == null) {
+                try {
+                    lane = getCursor(topicName, window.start, managedLedgerFactory, managedLedgerConfig);
+                } catch (ManagedLedgerException | InterruptedException e) {
+                    log.error(e, "Failed to open read-ahead cursor");
+                    retryWindows.addFirst(window);
+                    throw new RuntimeException(e);
+                }
+                lanes.add(lane);
+            } else {
+                ((ReadOnlyCursorImpl) lane).seek(window.start);
+            }
+            window.lane = lane;
+            window.reservedBytes = averageEntrySize * window.numEntries;
+            window.startTime = System.nanoTime();
+            entryQueueCacheSizeAllocator.allocate(window.reservedBytes);
+            bufferedEntries += window.numEntries;
+            windowsInFlight++;
+            metricsTracker.incr_READ_ATTEMPTS_SUCCESS();
+            lane.asyncReadEntries(window.numEntries, this, window, PositionImpl.LATEST);
+        }
+
+        /**
+         * Hand the completed windows to the entry queue in window order.
+         */
+        private void deliverCompletedWindows() {
+            while (!completedWindows.isEmpty() && completedWindows.firstKey() == nextWindowToDeliver) {
+                ReadWindow window = completedWindows.get(nextWindowToDeliver);
+                if (entryQueue.capacity() - entryQueue.size() < window.entries.size()) {
+                    return;
+                }
+                entriesDelivered.addAndGet(window.entries.size());
+                for (Entry entry : window.entries) {
+                    entryQueue.offer(entry);
+                }
+                completedWindows.remove(nextWindowToDeliver);
+                bufferedEntries -= window.numEntries;
+                nextWindowToDeliver++;
+            }
+        }
+
         @Override
         public void readEntriesComplete(List<Entry> entries, Object ctx) {
+            if (ctx instanceof ReadWindow) {
+                windowComplete((ReadWindow) ctx, entries);
+                return;
+            }
 
+            long bytes = 0;
+            for (Entry entry : entries) {
+                bytes += entry.getLength();
+            }
+            entriesDelivered.addAndGet(entries.size());
             entryQueue.fill(new MessagePassingQueue.Supplier<Entry>() {
                 private int i = 0;
                 @Override
@@ -433,15 +1052,69 @@ public class PulsarRecordCursor implements RecordCursor {
 
             outstandingReadsRequests.incrementAndGet();
 
+            deserializeEntries.schedule();
+            signalMessageAvailable();
+
+            long latency = System.nanoTime() - (long) ctx;
+            readController.recordRead(entries.size(), bytes, latency);
+
             //set read latency stats for success
-            metricsTracker.register_READ_LATENCY_PER_BATCH_SUCCESS(System.nanoTime() - (long) ctx);
+            metricsTracker.register_READ_LATENCY_PER_BATCH_SUCCESS(latency);
             //stats for number of entries read
             metricsTracker.incr_NUM_ENTRIES_PER_BATCH_SUCCESS(entries.size());
         }
 
+        private void windowComplete(ReadWindow window, List<Entry> entries) {
+            long bytes = 0;
+            for (Entry entry : entries) {
+                bytes += entry.getLength();
+            }
+            synchronized (this) {
+                // replace the reservation with the actual size of the window
+                entryQueueCacheSizeAllocator.release(window.reservedBytes);
+                entryQueueCacheSizeAllocator.allocate(bytes);
+                if (!entries.isEmpty()) {
+                    averageEntrySize = (averageEntrySize + bytes / entries.size() + 1) / 2;
+                }
+
+                window.entries = entries;
+                // entries the ledger did not return will not be delivered
+                bufferedEntries -= window.numEntries - entries.size();
+                window.numEntries = entries.size();
+                windowsInFlight--;
+                idleLanes.add(window.lane);
+                completedWindows.put(window.sequence, window);
+                deliverCompletedWindows();
+            }
+
+            deserializeEntries.schedule();
+            signalMessageAvailable();
+
+            long latency = System.nanoTime() - window.startTime;
+            readController.recordRead(entries.size(), bytes, latency);
+
+            //set read latency stats for success
+            metricsTracker.register_READ_LATENCY_PER_BATCH_SUCCESS(latency);
+            //stats for number of entries read
+            metricsTracker.incr_NUM_ENTRIES_PER_BATCH_SUCCESS(entries.size());
+        }
+
+        /**
+         * Returns true if no read is in flight and all entries read were deserialized, so progress depends on
+         * the consumer issuing the next read.
+         */
+        public boolean isIdle() {
+            if (readAheadDepth > 1) {
+                synchronized (this) {
+                    return !isDone && windowsInFlight == 0 && completedWindows.isEmpty() && isDeserializerDrained();
+                }
+            }
+            return !isDone && outstandingReadsRequests.get() > 0 && isDeserializerDrained();
+        }
+
         public boolean hasFinished() {
-            return messageQueue.isEmpty() && isDone && outstandingReadsRequests.get() >= 1
-                    && splitSize <= entriesProcessed && chunkedMessagesMap.isEmpty();
+            return messageQueue.isEmpty() && countedRows.get() == 0 && isDone && outstandingReadsRequests.get() >= 1
+                    && splitSize <= entriesProcessed.get() && chunkedMessagesMap.isEmpty();
         }
 
         @Override
@@ -449,12 +1122,65 @@ public class PulsarRecordCursor implements RecordCursor {
             if (log.isDebugEnabled()) {
                 log.debug(exception, "Failed to read entries from topic %s", topicName.toString());
             }
-            outstandingReadsRequests.incrementAndGet();
+            long startTime;
+            int requestedEntries;
+            if (ctx instanceof ReadWindow) {
+                ReadWindow window = (ReadWindow) ctx;
+                requestedEntries = window.numEntries;
+                synchronized (this) {
+                    entryQueueCacheSizeAllocator.release(window.reservedBytes);
+                    bufferedEntries -= window.numEntries;
+                    windowsInFlight--;
+                    idleLanes.add(window.lane);
+                    // read the window again on the next run
+                    retryWindows.add(window);
+                }
+                startTime = window.startTime;
+            } else {
+                requestedEntries = requestedBatchSize;
+                outstandingReadsRequests.incrementAndGet();
+                startTime = (long) ctx;
+            }
+            // let the consumer issue the next read
+            signalMessageAvailable();
 
             //set read latency stats for failed
-            metricsTracker.register_READ_LATENCY_PER_BATCH_FAIL(System.nanoTime() - (long) ctx);
+            metricsTracker.register_READ_LATENCY_PER_BATCH_FAIL(System.nanoTime() - startTime);
             //stats for number of entries read failed
-            metricsTracker.incr_NUM_ENTRIES_PER_BATCH_FAIL(maxBatchSize);
+            metricsTracker.incr_NUM_ENTRIES_PER_BATCH_FAIL(requestedEntries);
+        }
+
+        synchronized void close() {
+            for (ReadOnlyCursor lane : lanes) {
+                try {
+                    lane.close();
+                } catch (Exception e) {
+                    log.error(e);
+                }
+            }
+            for (ReadWindow window : completedWindows.values()) {
+                window.entries.forEach(Entry::release);
+            }
+            completedWindows.clear();
+        }
+    }
+
+    /**
+     * A range of consecutive entries read by one request of the pipelined read-ahead.
+     */
+    private static class ReadWindow {
+        private final long sequence;
+        private final PositionImpl start;
+        private int numEntries;
+        private ReadOnlyCursor lane;
+        private long reservedBytes;
+        private long startTime;
+        private List<Entry> entries;
+
+        ReadWindow(long sequence, PositionImpl start, int numEntries) {
+            this.sequence = sequence;
+            this.start = start;
+            this.numEntries = numEntries;
         }
     }
 
@@ -473,175 +1199,594 @@ public class PulsarRecordCursor implements RecordCursor {
 
     @Override
     public boolean advanceNextPosition() {
+        while (!tryAdvanceNextPosition()) {
+            if (isFinished()) {
+                return false;
+            }
+            try {
+                isBlocked().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return true;
+    }
 
-        if (readEntries == null) {
-            // start deserialize thread
-            deserializeEntries = new DeserializeEntries();
-            deserializeEntries.setUncaughtExceptionHandler((t, ex) -> {
-                deserializingError = ex;
-            });
-            deserializeEntries.start();
+    /**
+     * Returns true if all messages of the split have been returned.
+     */
+    public boolean isFinished() {
+        return readEntries != null && (isLimitReached() || readEntries.hasFinished());
+    }
 
-            readEntries = new ReadEntries();
-            readEntries.run();
+    private boolean isLimitReached() {
+        return rowsReturned >= rowLimit;
+    }
+
+    /**
+     * Returns a future that completes when {@link #tryAdvanceNextPosition()} may be able to return a message,
+     * either because a message was enqueued, a read completed or failed, or the split finished.
+     */
+    public CompletableFuture<?> isBlocked() {
+        if (canMakeProgress()) {
+            return NOT_BLOCKED;
         }
+        CompletableFuture<Void> future = messageAvailable;
+        if (future == null || future.isDone()) {
+            future = new CompletableFuture<>();
+            long waitStartTime = System.nanoTime();
+            // stats for time spent wait to read from message queue because its empty
+            future.thenRun(() -> metricsTracker.register_MESSAGE_QUEUE_DEQUEUE_WAIT_TIME(
+                    NANOSECONDS.toMillis(System.nanoTime() - waitStartTime)));
+            messageAvailable = future;
+        }
+        // re-check after publishing the future, a signal may have been missed in between
+        if (canMakeProgress()) {
+            future.complete(null);
+        }
+        return future;
+    }
+
+    private boolean canMakeProgress() {
+        return readEntries == null
+                || !messageQueue.isEmpty()
+                || countedRows.get() > 0
+                || isLimitReached()
+                || deserializingError != null
+                || readEntries.isIdle()
+                || readEntries.hasFinished();
+    }
 
-        if (currentMessage != null) {
-            currentMessage.release();
-            currentMessage = null;
+    /**
+     * Move to the next message if one is available without waiting.
+     * Returns false if the split is finished or no message is available yet, see {@link #isBlocked()}.
+     */
+    public boolean tryAdvanceNextPosition() {
+        startReading();
+        if (countOnly) {
+            return tryAdvanceCountedRows(1) > 0;
+        }
+        if (isLimitReached()) {
+            if (currentMessage != null) {
+                currentMessage.release();
+                currentMessage = null;
+            }
+            return false;
         }
 
+        // skip the rows rejected by the predicate of the split
         while (true) {
+            if (currentMessage != null) {
+                currentMessage.release();
+                currentMessage = null;
+            }
+
             if (readEntries.hasFinished()) {
                 return false;
             }
 
-            if ((messageQueue.capacity() - messageQueue.size()) > 0) {
+            if (messageQueue.size() < readController.getMessageQueueLimit()) {
                 readEntries.run();
             }
 
             currentMessage = messageQueue.poll();
-            if (currentMessage != null) {
-                messageQueueCacheSizeAllocator.release(currentMessage.getData().readableBytes());
-                break;
-            } else if (deserializingError != null) {
-                throw new RuntimeException(deserializingError);
+            if (currentMessage == null) {
+                if (deserializingError != null) {
+                    throw new RuntimeException(deserializingError);
+                }
+                return false;
+            }
+            messageQueueCacheSizeAllocator.release(currentMessage.getData().readableBytes());
+            deserializeEntries.messageQueueDrained();
+
+            // domains on internal columns only read the message metadata, evaluate them before decoding
+            if (tupleDomainFilter.hasInternalFilters() && !tupleDomainFilter.matchesInternalColumns(currentRowValues)) {
+                continue;
+            }
+
+            if (!payloadProjected) {
+                // only internal columns are read, they come from the message metadata
+                rowsReturned++;
+                return true;
+            }
+
+            //start time for deserializing record
+            metricsTracker.start_RECORD_DESERIALIZE_TIME();
+
+            DecodePlan decodePlan = getDecodePlan();
+            currentRecordSize = this.currentMessage.getData().readableBytes();
+
+            if (decodePlan.keyValue) {
+                ByteBuf keyByteBuf;
+                ByteBuf valueByteBuf;
+
+                if (decodePlan.inlineKeyValue) {
+                    ByteBuf dataPayload = this.currentMessage.getData();
+                    int keyLength = dataPayload.readInt();
+                    keyByteBuf = dataPayload.readSlice(keyLength);
+                    int valueLength = dataPayload.readInt();
+                    valueByteBuf = dataPayload.readSlice(valueLength);
+                } else {
+                    keyByteBuf = this.currentMessage.getKeyBytes().get();
+                    valueByteBuf = this.currentMessage.getData();
+                    currentRecordSize += keyByteBuf.readableBytes();
+                }
+
+                currentKeyRecord = decodePlan.keyDecoder != null ? decodePlan.keyDecoder.decodeRecord(keyByteBuf) : null;
+                currentValueRecord = decodePlan.valueDecoder != null
+                        ? decodePlan.valueDecoder.decodeRecord(valueByteBuf) : null;
             } else {
-                try {
-                    Thread.sleep(1);
-                    // stats for time spent wait to read from message queue because its empty
-                    metricsTracker.register_MESSAGE_QUEUE_DEQUEUE_WAIT_TIME(1);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+                currentKeyRecord = null;
+                currentValueRecord = decodePlan.valueDecoder.decodeRecord(this.currentMessage.getData());
+            }
+            // columns are extracted from the records when they are read, see DecodedColumnValue
+            currentRowId++;
+
+            metricsTracker.incr_NUM_RECORD_DESERIALIZED();
+
+            // stats for time spend deserializing
+            metricsTracker.end_RECORD_DESERIALIZE_TIME();
+
+            // only the columns constrained by the domains are extracted here
+            if (!tupleDomainFilter.hasDecodedFilters() || tupleDomainFilter.matchesDecodedColumns(currentRowValues)) {
+                rowsReturned++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Count-only mode: take up to {@code maxRows} rows counted by the deserializer, no message is returned for them.
+     * If the publish time is projected, the rows taken share the publish time of {@link #currentPublishTime()}.
+     * Returns 0 if the split is finished or no row is available yet, see {@link #isBlocked()}.
+     */
+    public int tryAdvanceCountedRows(int maxRows) {
+        checkState(countOnly, "columns are projected");
+        startReading();
+        // the deserializer only adds rows, so the rows seen here can be taken
+        long available = Math.min(countedRows.get(), rowLimit - rowsReturned);
+        if (available > 0) {
+            int rows = (int) Math.min(available, maxRows);
+            if (publishTimeRuns != null) {
+                // the runs of the counted rows are queued before they are counted
+                if (currentRun == null || currentRun.rows == 0) {
+                    currentRun = publishTimeRuns.poll();
                 }
+                rows = (int) Math.min(rows, currentRun.rows);
+                currentRun.rows -= rows;
             }
+            countedRows.addAndGet(-rows);
+            rowsReturned += rows;
+            return rows;
+        }
+        if (isLimitReached()) {
+            return 0;
+        }
+        if (deserializingError != null) {
+            throw new RuntimeException(deserializingError);
+        }
+        if (!readEntries.hasFinished()) {
+            readEntries.run();
         }
+        return 0;
+    }
 
-        //start time for deserializing record
-        metricsTracker.start_RECORD_DESERIALIZE_TIME();
+    boolean isCountOnly() {
+        return countOnly;
+    }
 
-        SchemaInfo schemaInfo = getSchemaInfo(pulsarSplit);
+    private void countRows(long publishTime, int rows) {
+        if (publishTimeRuns != null) {
+            publishTimeRuns.add(new PublishTimeRun(publishTime, rows));
+        }
+        countedRows.addAndGet(rows);
+    }
 
-        Map<ColumnHandle, FieldValueProvider> currentRowValuesMap = new HashMap<>();
+    /**
+     * The publish time in milliseconds of the current row, in count-only mode the one of the rows taken last.
+     */
+    private long currentPublishTime() {
+        return countOnly ? currentRun.publishTime : currentMessage.getPublishTime();
+    }
 
-        if (schemaInfo.getType().equals(SchemaType.KEY_VALUE)) {
-            ByteBuf keyByteBuf;
-            ByteBuf valueByteBuf;
+    /**
+     * Rows counted from the headers of an entry or message, sharing its publish time.
+     */
+    private static class PublishTimeRun {
+        private final long publishTime;
+        private long rows;
 
-            KeyValueEncodingType keyValueEncodingType = KeyValueSchemaInfo.decodeKeyValueEncodingType(schemaInfo);
-            if (Objects.equals(keyValueEncodingType, KeyValueEncodingType.INLINE)) {
-                ByteBuf dataPayload = this.currentMessage.getData();
-                int keyLength = dataPayload.readInt();
-                keyByteBuf = dataPayload.readSlice(keyLength);
-                int valueLength = dataPayload.readInt();
-                valueByteBuf = dataPayload.readSlice(valueLength);
-            } else {
-                keyByteBuf = this.currentMessage.getKeyBytes().get();
-                valueByteBuf = this.currentMessage.getData();
-            }
-
-            KeyValue<SchemaInfo, SchemaInfo> kvSchemaInfo = KeyValueSchemaInfo.decodeKeyValueSchemaInfo(schemaInfo);
-            Set<DecoderColumnHandle> keyColumnHandles = columnHandles.stream()
-                    .filter(col -> !col.isInternal())
-                    .filter(col -> PulsarColumnHandle.HandleKeyValueType.KEY
-                            .equals(col.getHandleKeyValueType()))
-                    .collect(toImmutableSet());
-            PulsarRowDecoder keyDecoder = null;
-            if (keyColumnHandles.size() > 0) {
-                keyDecoder = decoderFactory.createRowDecoder(topicName,
-                        kvSchemaInfo.getKey(), keyColumnHandles
-                );
-            }
-
-            Set<DecoderColumnHandle> valueColumnHandles = columnHandles.stream()
-                    .filter(col -> !col.isInternal())
-                    .filter(col -> PulsarColumnHandle.HandleKeyValueType.VALUE
-                            .equals(col.getHandleKeyValueType()))
-                    .collect(toImmutableSet());
-            PulsarRowDecoder valueDecoder = null;
-            if (valueColumnHandles.size() > 0) {
-                valueDecoder = decoderFactory.createRowDecoder(topicName,
-                        kvSchemaInfo.getValue(),
-                        valueColumnHandles);
-            }
-
-            Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodedKey;
-            if (keyColumnHandles.size() > 0) {
-                decodedKey = keyDecoder.decodeRow(keyByteBuf);
-                decodedKey.ifPresent(currentRowValuesMap::putAll);
-            }
-            if (valueColumnHandles.size() > 0) {
-                Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodedValue =
-                        valueDecoder.decodeRow(valueByteBuf);
-                decodedValue.ifPresent(currentRowValuesMap::putAll);
+        PublishTimeRun(long publishTime, long rows) {
+            this.publishTime = publishTime;
+            this.rows = rows;
+        }
+    }
+
+    private void startReading() {
+        if (readEntries == null) {
+            // start deserializing on the shared executor
+            deserializeEntries = new DeserializeEntries(deserializationExecutor,
+                    pulsarConnectorConfig.getSplitDeserializationParallelism());
+            deserializeEntries.start();
+
+            readEntries = new ReadEntries(pulsarConnectorConfig.getReadAheadDepth());
+            readEntries.run();
+        }
+    }
+
+    /**
+     * Returns the decode plan for the schema version of the current message. Messages of a split almost always
+     * share one schema version, so the plan of the previous message is reused until the version changes.
+     */
+    private DecodePlan getDecodePlan() {
+        byte[] schemaVersion = this.currentMessage.getSchemaVersion();
+        if (schemaVersion == null) {
+            schemaVersion = EMPTY_SCHEMA_VERSION;
+        }
+        if (decodePlan == null || !Arrays.equals(decodePlanSchemaVersion, schemaVersion)) {
+            decodePlan = new DecodePlan(getSchemaInfo(pulsarSplit));
+            decodePlanSchemaVersion = schemaVersion;
+        }
+        return decodePlan;
+    }
+
+    /**
+     * Internal columns, resolved once per split from the column names.
+     */
+    private enum InternalField {
+        PARTITION, EVENT_TIME, PUBLISH_TIME, MESSAGE_ID, SEQUENCE_ID, PRODUCER_NAME, KEY, PROPERTIES;
+
+        static InternalField of(String name) {
+            switch (name) {
+                case "__partition__":
+                    return PARTITION;
+                case "__event_time__":
+                    return EVENT_TIME;
+                case "__publish_time__":
+                    return PUBLISH_TIME;
+                case "__message_id__":
+                    return MESSAGE_ID;
+                case "__sequence_id__":
+                    return SEQUENCE_ID;
+                case "__producer_name__":
+                    return PRODUCER_NAME;
+                case "__key__":
+                    return KEY;
+                case "__properties__":
+                    return PROPERTIES;
+                default:
+                    throw new IllegalArgumentException("unknown internal field " + name);
             }
-        } else {
-            PulsarRowDecoder messageDecoder = decoderFactory.createRowDecoder(topicName,
-                    schemaInfo,
-                    columnHandles.stream()
-                            .filter(col -> !col.isInternal())
-                            .filter(col -> PulsarColumnHandle.HandleKeyValueType.NONE
-                                    .equals(col.getHandleKeyValueType()))
-                            .collect(toImmutableSet()));
-
-            Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodedValue =
-                    messageDecoder.decodeRow(this.currentMessage.getData());
-            decodedValue.ifPresent(currentRowValuesMap::putAll);
-        }
-
-        for (DecoderColumnHandle columnHandle : columnHandles) {
-            if (columnHandle.isInternal()) {
-                switch (columnHandle.getName()) {
-                    case "__partition__":
-                        currentRowValuesMap.put(columnHandle, longValueProvider(this.partition));
-                        break;
-                    case "__event_time__":
-                        currentRowValuesMap.put(columnHandle, PulsarFieldValueProviders.timeValueProvider(
-                                this.currentMessage.getEventTime(), this.currentMessage.getEventTime() == 0));
-                        break;
-                    case "__publish_time__":
-                        currentRowValuesMap.put(columnHandle, PulsarFieldValueProviders.timeValueProvider(
-                                this.currentMessage.getPublishTime(), this.currentMessage.getPublishTime() == 0));
-                        break;
-                    case "__message_id__":
-                        currentRowValuesMap.put(columnHandle, bytesValueProvider(
-                                this.currentMessage.getMessageId().toString().getBytes()));
-                        break;
-                    case "__sequence_id__":
-                        currentRowValuesMap.put(columnHandle, longValueProvider(this.currentMessage.getSequenceId()));
-                        break;
-                    case "__producer_name__":
-                        currentRowValuesMap.put(columnHandle,
-                                bytesValueProvider(this.currentMessage.getProducerName().getBytes()));
-                        break;
-                    case "__key__":
-                        String key = this.currentMessage.getKey().orElse(null);
-                        currentRowValuesMap.put(columnHandle, bytesValueProvider(key == null ? null : key.getBytes()));
-                        break;
-                    case "__properties__":
-                        try {
-                            currentRowValuesMap.put(columnHandle, bytesValueProvider(
-                                    new ObjectMapper().writeValueAsBytes(this.currentMessage.getProperties())));
-                        } catch (JsonProcessingException e) {
-                            throw new RuntimeException(e);
-                        }
-                        break;
-                    default:
-                        throw new IllegalArgumentException("unknown internal field " + columnHandle.getName());
+        }
+    }
+
+    /**
+     * Returns the value of an internal column. The value reads the current message when the column is read,
+     * so internal columns cost nothing per row and only columns that are actually read are materialized.
+     */
+    private FieldValueProvider internalColumnValue(InternalField field) {
+        switch (field) {
+            case PARTITION:
+                return longValueProvider(this.partition);
+            case EVENT_TIME:
+                return new InternalColumnValue() {
+                    @Override
+                    public boolean isNull() {
+                        return currentMessage.getEventTime() == 0;
+                    }
+
+                    @Override
+                    public long getLong() {
+                        return PulsarInternalColumn.toTimestampValue(currentMessage.getEventTime());
+                    }
+                };
+            case PUBLISH_TIME:
+                return new InternalColumnValue() {
+                    @Override
+                    public boolean isNull() {
+                        return currentPublishTime() == 0;
+                    }
+
+                    @Override
+                    public long getLong() {
+                        return PulsarInternalColumn.toTimestampValue(currentPublishTime());
+                    }
+                };
+            case MESSAGE_ID:
+                return new InternalColumnValue() {
+                    @Override
+                    public Slice getSlice() {
+                        return messageIdSlice();
+                    }
+                };
+            case SEQUENCE_ID:
+                return new InternalColumnValue() {
+                    @Override
+                    public long getLong() {
+                        return currentMessage.getSequenceId();
+                    }
+                };
+            case PRODUCER_NAME:
+                return new InternalColumnValue() {
+                    @Override
+                    public Slice getSlice() {
+                        return utf8Slice(currentMessage.getProducerName());
+                    }
+                };
+            case KEY:
+                return new InternalColumnValue() {
+                    @Override
+                    public boolean isNull() {
+                        return !currentMessage.getKey().isPresent();
+                    }
+
+                    @Override
+                    public Slice getSlice() {
+                        return utf8Slice(currentMessage.getKey().get());
+                    }
+                };
+            case PROPERTIES:
+                return new InternalColumnValue() {
+                    @Override
+                    public Slice getSlice() {
+                        return propertiesSlice();
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("unknown internal field " + field);
+        }
+    }
+
+    /**
+     * Writes the internal column {@code field} of the current row straight from the message metadata, so
+     * {@link PulsarPageSource} fills the blocks of internal columns without a value provider per cell.
+     */
+    void writeInternalColumn(int field, BlockBuilder output) {
+        Type type = columnHandles.get(field).getType();
+        switch (internalFields[field]) {
+            case PARTITION:
+                type.writeLong(output, partition);
+                break;
+            case EVENT_TIME:
+                writeTimestamp(type, output, currentMessage.getEventTime());
+                break;
+            case PUBLISH_TIME:
+                writeTimestamp(type, output, currentPublishTime());
+                break;
+            case MESSAGE_ID:
+                type.writeSlice(output, messageIdSlice());
+                break;
+            case SEQUENCE_ID:
+                type.writeLong(output, currentMessage.getSequenceId());
+                break;
+            case PRODUCER_NAME:
+                type.writeSlice(output, utf8Slice(currentMessage.getProducerName()));
+                break;
+            case KEY:
+                Optional<String> key = currentMessage.getKey();
+                if (key.isPresent()) {
+                    type.writeSlice(output, utf8Slice(key.get()));
+                } else {
+                    output.appendNull();
                 }
+                break;
+            case PROPERTIES:
+                type.writeSlice(output, propertiesSlice());
+                break;
+            default:
+                throw new IllegalArgumentException("unknown internal field " + internalFields[field]);
+        }
+    }
+
+    /**
+     * Count-only mode: write the value of the internal column {@code field} of the {@code rows} rows taken last.
+     */
+    void writeInternalColumn(int field, BlockBuilder output, int rows) {
+        for (int i = 0; i < rows; i++) {
+            writeInternalColumn(field, output);
+        }
+    }
+
+    private static void writeTimestamp(Type type, BlockBuilder output, long millis) {
+        // a zero time is not set on the message
+        if (millis == 0) {
+            output.appendNull();
+        } else {
+            type.writeLong(output, PulsarInternalColumn.toTimestampValue(millis));
+        }
+    }
+
+    private Slice messageIdSlice() {
+        return utf8Slice(currentMessage.getMessageId().toString());
+    }
+
+    private Slice propertiesSlice() {
+        Map<String, String> properties = currentMessage.getProperties();
+        if (properties.isEmpty()) {
+            return EMPTY_PROPERTIES;
+        }
+        try {
+            return Slices.wrappedBuffer(PROPERTIES_WRITER.writeValueAsBytes(properties));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private abstract static class InternalColumnValue extends FieldValueProvider {
+        @Override
+        public boolean isNull() {
+            return false;
+        }
+    }
+
+    /**
+     * Row decoders and key/value layout resolved once per schema version. The decoders themselves come from the
+     * worker-wide cache of {@link PulsarDispatchingRowDecoderFactory}.
+     */
+    final class DecodePlan {
+        private final boolean keyValue;
+        private final boolean inlineKeyValue;
+        private final PulsarRowDecoder keyDecoder;
+        private final PulsarRowDecoder valueDecoder;
+        // per split column, the index of the column in the columns of its decoder, or -1 if it is not decoded
+        private final int[] decoderColumns;
+        private final boolean[] keyColumns;
+
+        DecodePlan(SchemaInfo schemaInfo) {
+            this.keyValue = schemaInfo.getType().equals(SchemaType.KEY_VALUE);
+            if (keyValue) {
+                this.inlineKeyValue = Objects.equals(KeyValueSchemaInfo.decodeKeyValueEncodingType(schemaInfo),
+                        KeyValueEncodingType.INLINE);
+                KeyValue<SchemaInfo, SchemaInfo> kvSchemaInfo = KeyValueSchemaInfo.decodeKeyValueSchemaInfo(schemaInfo);
+                this.keyDecoder = keyColumnHandles.isEmpty() ? null
+                        : decoderFactory.createRowDecoder(topicName, kvSchemaInfo.getKey(), keyColumnHandles);
+                this.valueDecoder = valueColumnHandles.isEmpty() ? null
+                        : decoderFactory.createRowDecoder(topicName, kvSchemaInfo.getValue(), valueColumnHandles);
+            } else {
+                this.inlineKeyValue = false;
+                this.keyDecoder = null;
+                this.valueDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo, messageColumnHandles);
+            }
+
+            this.decoderColumns = new int[columnHandles.size()];
+            this.keyColumns = new boolean[columnHandles.size()];
+            Arrays.fill(decoderColumns, -1);
+            if (keyDecoder != null) {
+                bindColumns(keyDecoder, true);
+            }
+            if (valueDecoder != null) {
+                bindColumns(valueDecoder, false);
             }
         }
-        for (int i = 0; i < columnHandles.size(); i++) {
-            ColumnHandle columnHandle = columnHandles.get(i);
-            currentRowValues[i] = currentRowValuesMap.get(columnHandle);
+
+        private void bindColumns(PulsarRowDecoder decoder, boolean key) {
+            List<DecoderColumnHandle> decodedColumns = decoder.getColumns();
+            for (int i = 0; i < decodedColumns.size(); i++) {
+                int field = columnHandles.indexOf(decodedColumns.get(i));
+                decoderColumns[field] = i;
+                keyColumns[field] = key;
+            }
         }
 
-        metricsTracker.incr_NUM_RECORD_DESERIALIZED();
+        /**
+         * Decodes a split column from the records of a row decoded with this plan. Safe to call from any thread
+         * and after the row's message has been released.
+         */
+        void decodeColumn(Object keyRecord, Object valueRecord, int field, PulsarFieldValueHolder value) {
+            int column = decoderColumns[field];
+            if (column < 0) {
+                // not decoded with this schema
+                value.setNull();
+            } else if (keyColumns[field]) {
+                keyDecoder.decodeColumn(keyRecord, column, value);
+            } else {
+                valueDecoder.decodeColumn(valueRecord, column, value);
+            }
+        }
+    }
 
-        // stats for time spend deserializing
-        metricsTracker.end_RECORD_DESERIALIZE_TIME();
+    /**
+     * Value of a column decoded from the message payload. The column is extracted from the decoded records
+     * of the current row when it is first read, so columns that are not read are never extracted.
+     */
+    private final class DecodedColumnValue extends FieldValueProvider {
+        private final int field;
+        private final PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+        private long decodedRowId = -1;
 
-        return true;
+        DecodedColumnValue(int field) {
+            this.field = field;
+        }
+
+        private PulsarFieldValueHolder value() {
+            if (decodedRowId != currentRowId) {
+                decodePlan.decodeColumn(currentKeyRecord, currentValueRecord, field, value);
+                decodedRowId = currentRowId;
+            }
+            return value;
+        }
+
+        @Override
+        public boolean isNull() {
+            return value().isNull();
+        }
+
+        @Override
+        public boolean getBoolean() {
+            return value().getBoolean();
+        }
+
+        @Override
+        public long getLong() {
+            return value().getLong();
+        }
+
+        @Override
+        public double getDouble() {
+            return value().getDouble();
+        }
+
+        @Override
+        public Slice getSlice() {
+            return value().getSlice();
+        }
+
+        @Override
+        public Block getBlock() {
+            return value().getBlock();
+        }
+    }
+
+    /**
+     * Decode plan of the current row, see {@link DecodePlan#decodeColumn}.
+     */
+    DecodePlan getCurrentDecodePlan() {
+        return decodePlan;
+    }
+
+    Object getCurrentKeyRecord() {
+        return currentKeyRecord;
+    }
+
+    /**
+     * Bytes of the payload the records of the current row were decoded from, an estimate of the memory they retain.
+     */
+    int getCurrentRecordSize() {
+        return currentRecordSize;
+    }
+
+    Object getCurrentValueRecord() {
+        return currentValueRecord;
+    }
+
+    /**
+     * Whether the field is decoded from the message payload, as opposed to an internal column.
+     */
+    boolean isDecodedField(int field) {
+        return !columnHandles.get(field).isInternal();
     }
 
     /**
@@ -741,7 +1886,15 @@ public class PulsarRecordCursor implements RecordCursor {
                 if (currentMessage != null) {
                     currentMessage.release();
                 }
+                releaseChunkedMessages();
+                closeCacheSizeAllocators();
             });
+        } else {
+            closeCacheSizeAllocators();
+        }
+
+        if (readEntries != null) {
+            readEntries.close();
         }
 
         if (this.cursor != null) {
@@ -765,12 +1918,19 @@ public class PulsarRecordCursor implements RecordCursor {
         checkArgument(actual == expected, "Expected field %s to be type %s but is %s", field, expected, actual);
     }
 
-    private void initEntryCacheSizeAllocator(PulsarConnectorConfig connectorConfig) {
-        if (connectorConfig.getMaxSplitQueueSizeBytes() >= 0) {
-            this.entryQueueCacheSizeAllocator = new NoStrictCacheSizeAllocator(
-                    connectorConfig.getMaxSplitQueueSizeBytes() / 2);
-            this.messageQueueCacheSizeAllocator = new NoStrictCacheSizeAllocator(
-                    connectorConfig.getMaxSplitQueueSizeBytes() / 2);
+    private void initEntryCacheSizeAllocator(PulsarConnectorConfig connectorConfig,
+                                             Optional<WorkerCacheSizeAllocator> workerCacheSizeAllocator) {
+        long maxQueueSizeBytes = connectorConfig.getMaxSplitQueueSizeBytes() >= 0
+                ? connectorConfig.getMaxSplitQueueSizeBytes() / 2 : -1;
+        if (workerCacheSizeAllocator.isPresent()) {
+            // the queues get their fair share of the cache size of the worker, capped by the size of a split
+            this.entryQueueCacheSizeAllocator = workerCacheSizeAllocator.get().openQueue(maxQueueSizeBytes);
+            this.messageQueueCacheSizeAllocator = workerCacheSizeAllocator.get().openQueue(maxQueueSizeBytes);
+            log.info("Init cacheSizeAllocator with maxWorkerQueueSizeBytes %d.",
+                    workerCacheSizeAllocator.get().getMaxCacheSize());
+        } else if (connectorConfig.getMaxSplitQueueSizeBytes() >= 0) {
+            this.entryQueueCacheSizeAllocator = new NoStrictCacheSizeAllocator(maxQueueSizeBytes);
+            this.messageQueueCacheSizeAllocator = new NoStrictCacheSizeAllocator(maxQueueSizeBytes);
             log.info("Init cacheSizeAllocator with maxSplitEntryQueueSizeBytes %d.",
                     connectorConfig.getMaxSplitQueueSizeBytes());
         } else {
@@ -780,10 +1940,25 @@ public class PulsarRecordCursor implements RecordCursor {
         }
     }
 
+    /**
+     * Bytes of the entries and messages queued by this cursor.
+     */
+    public long getMemoryUsage() {
+        return entryQueueCacheSizeAllocator.getAllocatedCacheSize()
+                + messageQueueCacheSizeAllocator.getAllocatedCacheSize();
+    }
+
+    private void closeCacheSizeAllocators() {
+        for (CacheSizeAllocator allocator : Arrays.asList(entryQueueCacheSizeAllocator, messageQueueCacheSizeAllocator)) {
+            if (allocator instanceof WorkerCacheSizeAllocator.QueueAllocator) {
+                ((WorkerCacheSizeAllocator.QueueAllocator) allocator).close();
+            }
+        }
+    }
+
     private RawMessage processChunkedMessages(RawMessage message) {
         final String uuid = message.getUUID();
         final int chunkId = message.getChunkId();
-        final int totalChunkMsgSize = message.getTotalChunkMsgSize();
         final int numChunks = message.getNumChunksFromMsg();
 
         RawMessageIdImpl rawMessageId = (RawMessageIdImpl) message.getMessageId();
@@ -793,9 +1968,9 @@ public class PulsarRecordCursor implements RecordCursor {
             message.release();
             return null;
         }
-        if (chunkId == 0) {
-            ByteBuf chunkedMsgBuffer = Unpooled.directBuffer(totalChunkMsgSize, totalChunkMsgSize);
-            chunkedMessagesMap.computeIfAbsent(uuid, (key) -> ChunkedMessageCtx.get(numChunks, chunkedMsgBuffer));
+        if (chunkId == 0 && !chunkedMessagesMap.containsKey(uuid)) {
+            chunkedMessagesMap.put(uuid, ChunkedMessageCtx.get(numChunks, Unpooled.compositeBuffer(numChunks)));
+            chunkedMessageOrder.add(uuid);
         }
 
         ChunkedMessageCtx chunkedMsgCtx = chunkedMessagesMap.get(uuid);
@@ -806,19 +1981,23 @@ public class PulsarRecordCursor implements RecordCursor {
                     message.getMessageId(),
                     (chunkedMsgCtx != null ? chunkedMsgCtx.lastChunkedMessageId : null), chunkId,
                     numChunks);
-            if (chunkedMsgCtx != null) {
-                if (chunkedMsgCtx.chunkedMsgBuffer != null) {
-                    ReferenceCountUtil.safeRelease(chunkedMsgCtx.chunkedMsgBuffer);
-                }
-                chunkedMsgCtx.recycle();
-            }
-            chunkedMessagesMap.remove(uuid);
+            removeChunkedMessage(uuid, true);
             message.release();
             return null;
         }
 
-        // append the chunked payload and update lastChunkedMessage-id
-        chunkedMsgCtx.chunkedMsgBuffer.writeBytes(message.getData());
+        // keep the chunk payload instead of copying it, the buffer of its entry stays alive until the
+        // reassembled message is released
+        ByteBuf chunk = message.getData();
+        if (!reserveChunkedMessageBytes(uuid, chunk.readableBytes())) {
+            log.warn("Dropped chunked message %s of %s chunks, it does not fit in the %s bytes of chunked message "
+                    + "buffer of the split", uuid, numChunks, pulsarConnectorConfig.getMaxSplitChunkedMessageBufferSizeBytes());
+            removeChunkedMessage(uuid, true);
+            message.release();
+            return null;
+        }
+        chunkedMsgCtx.chunkedMsgBuffer.addComponent(true, chunk.retainedSlice());
+        chunkedMsgCtx.bufferedBytes += chunk.readableBytes();
         chunkedMsgCtx.lastChunkedMessageId = chunkId;
 
         // if final chunk is not received yet then release payload and return
@@ -831,20 +2010,73 @@ public class PulsarRecordCursor implements RecordCursor {
             log.debug("Chunked message completed. chunkId: %s, totalChunks: %s, msgId: %s, sequenceId: %s",
                     chunkId, numChunks, rawMessageId, message.getSequenceId());
         }
-        chunkedMessagesMap.remove(uuid);
         ByteBuf unCompressedPayload = chunkedMsgCtx.chunkedMsgBuffer;
-        chunkedMsgCtx.recycle();
+        removeChunkedMessage(uuid, false);
         // The chunked message complete, we use the entire payload to instead of the last chunk payload.
         return ((RawMessageImpl) message).updatePayloadForChunkedMessage(unCompressedPayload);
     }
 
+    /**
+     * Account for {@code bytes} more bytes of chunks of the message {@code uuid}, dropping the oldest other
+     * incomplete chunked messages if needed. Returns false if the message can not fit in the buffer.
+     */
+    private boolean reserveChunkedMessageBytes(String uuid, int bytes) {
+        long maxBytes = pulsarConnectorConfig.getMaxSplitChunkedMessageBufferSizeBytes();
+        if (maxBytes < 0) {
+            chunkedMessageBytes += bytes;
+            messageQueueCacheSizeAllocator.allocate(bytes);
+            return true;
+        }
+        Iterator<String> oldest = chunkedMessageOrder.iterator();
+        while (chunkedMessageBytes + bytes > maxBytes && oldest.hasNext()) {
+            String evicted = oldest.next();
+            if (!evicted.equals(uuid)) {
+                log.warn("Dropped incomplete chunked message %s, the chunked message buffer of the split is full",
+                        evicted);
+                oldest.remove();
+                releaseChunkedMessage(chunkedMessagesMap.remove(evicted), true);
+            }
+        }
+        if (chunkedMessageBytes + bytes > maxBytes) {
+            return false;
+        }
+        chunkedMessageBytes += bytes;
+        messageQueueCacheSizeAllocator.allocate(bytes);
+        return true;
+    }
+
+    private void removeChunkedMessage(String uuid, boolean releaseBuffer) {
+        chunkedMessageOrder.remove(uuid);
+        releaseChunkedMessage(chunkedMessagesMap.remove(uuid), releaseBuffer);
+    }
+
+    private void releaseChunkedMessage(ChunkedMessageCtx chunkedMsgCtx, boolean releaseBuffer) {
+        if (chunkedMsgCtx == null) {
+            return;
+        }
+        // the reassembled message is accounted for again once it is in the message queue
+        chunkedMessageBytes -= chunkedMsgCtx.bufferedBytes;
+        messageQueueCacheSizeAllocator.release(chunkedMsgCtx.bufferedBytes);
+        if (releaseBuffer && chunkedMsgCtx.chunkedMsgBuffer != null) {
+            ReferenceCountUtil.safeRelease(chunkedMsgCtx.chunkedMsgBuffer);
+        }
+        chunkedMsgCtx.recycle();
+    }
+
+    private void releaseChunkedMessages() {
+        while (!chunkedMessageOrder.isEmpty()) {
+            removeChunkedMessage(chunkedMessageOrder.peek(), true);
+        }
+    }
+
     static class ChunkedMessageCtx {
 
         protected int totalChunks = -1;
-        protected ByteBuf chunkedMsgBuffer;
+        protected CompositeByteBuf chunkedMsgBuffer;
         protected int lastChunkedMessageId = -1;
+        protected long bufferedBytes;
 
-        static ChunkedMessageCtx get(int numChunksFromMsg, ByteBuf chunkedMsgBuffer) {
+        static ChunkedMessageCtx get(int numChunksFromMsg, CompositeByteBuf chunkedMsgBuffer) {
             ChunkedMessageCtx ctx = RECYCLER.get();
             ctx.totalChunks = numChunksFromMsg;
             ctx.chunkedMsgBuffer = chunkedMsgBuffer;
@@ -867,6 +2099,7 @@ public class PulsarRecordCursor implements RecordCursor {
             this.totalChunks = -1;
             this.chunkedMsgBuffer = null;
             this.lastChunkedMessageId = -1;
+            this.bufferedBytes = 0;
             recyclerHandle.recycle(this);
         }
     }
@@ -18,6 +18,7 @@ import io.trino.decoder.FieldValueProvider;
 //import io.netty.buffer.ByteBuf;
 import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -30,4 +31,38 @@ public interface PulsarRowDecoder
      * @return
      */
     Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodeRow(ByteBuf byteBuf);
+
+    /**
+     * Columns decoded by this decoder, in the order of the columns of
+     * {@link #decodeColumn(Object, int, PulsarFieldValueHolder)}.
+     */
+    List<DecoderColumnHandle> getColumns();
+
+    /**
+     * parse byteBuf without extracting any column. The returned record does not reference byteBuf,
+     * so its columns can be decoded with {@link #decodeColumn(Object, int, PulsarFieldValueHolder)}
+     * after the message has been released.
+     *
+     * @param byteBuf
+     * @return
+     */
+    default Object decodeRecord(ByteBuf byteBuf)
+    {
+        return decodeRow(byteBuf);
+    }
+
+    /**
+     * decode the column at {@code column} of {@link #getColumns()} from a record returned by
+     * {@link #decodeRecord(ByteBuf)}. Columns without a decoded value are set to null.
+     *
+     * @param record
+     * @param column
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    default void decodeColumn(Object record, int column, PulsarFieldValueHolder value)
+    {
+        Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodedRow = (Optional<Map<DecoderColumnHandle, FieldValueProvider>>) record;
+        value.setProvider(decodedRow.isPresent() ? decodedRow.get().get(getColumns().get(column)) : null);
+    }
 }
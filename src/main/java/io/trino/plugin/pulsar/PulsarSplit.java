@@ -225,4 +225,13 @@ public class PulsarSplit implements ConnectorSplit {
     public SchemaInfo getSchemaInfo() {
         return schemaInfo;
     }
+
+    /**
+     * Returns a split of the same topic reading {@code splitSize} entries from {@code startPosition}.
+     */
+    public PulsarSplit withRange(PositionImpl startPosition, PositionImpl endPosition, long splitSize) throws IOException {
+        return new PulsarSplit(splitId, connectorId, schemaName, originSchemaName, tableName, splitSize, schema,
+                schemaType, startPosition.getEntryId(), endPosition.getEntryId(), startPosition.getLedgerId(),
+                endPosition.getLedgerId(), tupleDomain, schemaInfoProperties, offloadPolicies);
+    }
 }
@@ -15,6 +15,7 @@ package io.trino.plugin.pulsar;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.trino.plugin.base.CatalogName;
 import io.trino.spi.TrinoException;
@@ -101,11 +102,12 @@ public class PulsarSplitManager
         DynamicFilter dynamicFilter,
         Constraint constraint) {
 
-        int numSplits = this.pulsarConnectorConfig.getTargetNumSplits();
-
         //PulsarTableLayoutHandle layoutHandle = (PulsarTableLayoutHandle) layout;
         PulsarTableHandle tableHandle = (PulsarTableHandle)table;
-        /*???????*/TupleDomain<ColumnHandle> tupleDomain = layoutHandle.getTupleDomain();
+
+        // with a limit, one split per partition: each of them stops reading once it returned the limit
+        int numSplits = tableHandle.getLimit().isPresent() ? 1 : this.pulsarConnectorConfig.getTargetNumSplits();
+        TupleDomain<ColumnHandle> tupleDomain = tableHandle.getConstraint();
 
         String namespace = restoreNamespaceDelimiterIfNeeded(tableHandle.getSchemaName(), pulsarConnectorConfig);
         TopicName topicName = TopicName.get("persistent", NamespaceName.get(namespace), tableHandle.getTopicName());
@@ -151,6 +153,11 @@ public class PulsarSplitManager
             log.error(e, "Failed to get splits");
             throw new RuntimeException(e);
         }
+        if (tableHandle.isAggregated()) {
+            // a single split answers the whole aggregation, an empty topic still returns the row of a global one
+            return new FixedSplitSource(ImmutableList.of(
+                    new PulsarAggregationSplit(ImmutableList.copyOf(splits), tableHandle.isGroupedByPartition())));
+        }
         return new FixedSplitSource(splits);
     }
 
@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Feedback controller for the read batch size and the effective queue capacities of a split.
+ *
+ * <p>The configured batch size and queue sizes are upper bounds. The effective queue capacities are derived
+ * from the byte budget of each queue and the observed average entry and message sizes, so queues of large
+ * payloads stay within the budget and queues of tiny messages are not limited by it. The batch size targets the
+ * number of entries the split consumes during one read round trip, which keeps reads ahead of the consumer
+ * without buffering more than needed.
+ *
+ * <p>Observations are reported at batch or run granularity and the derived limits are published through
+ * volatile fields, so the per-message paths read them without locking.
+ */
+public class PulsarSplitReadController
+{
+    private static final double SMOOTHING = 0.3;
+    private static final long RATE_INTERVAL_NANOS = MILLISECONDS.toNanos(100);
+    // read this many round trips worth of entries ahead of the consumer
+    private static final int LATENCY_HEADROOM = 2;
+
+    private final boolean adaptive;
+    private final int maxBatchSize;
+    private final int maxEntryQueueSize;
+    private final int maxMessageQueueSize;
+    // bytes available to each queue, negative if unbounded
+    private final long queueSizeBytes;
+
+    private double averageEntrySize;
+    private double averageMessageSize;
+    private double averageReadLatencyNanos;
+    private double entriesPerSecond;
+
+    private long rateWindowStart;
+    private long rateWindowEntries;
+
+    private volatile int batchSize;
+    private volatile int entryQueueLimit;
+    private volatile int messageQueueLimit;
+
+    public PulsarSplitReadController(PulsarConnectorConfig config)
+    {
+        this(config.isAdaptiveReadEnabled(),
+                config.getMaxEntryReadBatchSize(),
+                config.getMaxSplitEntryQueueSize(),
+                config.getMaxSplitMessageQueueSize(),
+                config.getMaxSplitQueueSizeBytes() >= 0 ? config.getMaxSplitQueueSizeBytes() / 2 : -1,
+                System.nanoTime());
+    }
+
+    @VisibleForTesting
+    PulsarSplitReadController(
+            boolean adaptive,
+            int maxBatchSize,
+            int maxEntryQueueSize,
+            int maxMessageQueueSize,
+            long queueSizeBytes,
+            long now)
+    {
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        checkArgument(maxEntryQueueSize > 0, "maxEntryQueueSize must be positive");
+        checkArgument(maxMessageQueueSize > 0, "maxMessageQueueSize must be positive");
+        this.adaptive = adaptive;
+        this.maxBatchSize = maxBatchSize;
+        this.maxEntryQueueSize = maxEntryQueueSize;
+        this.maxMessageQueueSize = maxMessageQueueSize;
+        this.queueSizeBytes = queueSizeBytes;
+        this.rateWindowStart = now;
+
+        this.batchSize = maxBatchSize;
+        this.entryQueueLimit = maxEntryQueueSize;
+        this.messageQueueLimit = maxMessageQueueSize;
+    }
+
+    /**
+     * Number of entries to request with the next read.
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Number of entries the entry queue should hold at most.
+     */
+    public int getEntryQueueLimit()
+    {
+        return entryQueueLimit;
+    }
+
+    /**
+     * Number of messages the message queue should hold at most.
+     */
+    public int getMessageQueueLimit()
+    {
+        return messageQueueLimit;
+    }
+
+    /**
+     * Report a completed read of {@code entries} entries totalling {@code bytes} bytes.
+     */
+    public synchronized void recordRead(int entries, long bytes, long latencyNanos)
+    {
+        if (!adaptive || entries <= 0) {
+            return;
+        }
+        averageEntrySize = smooth(averageEntrySize, (double) bytes / entries);
+        averageReadLatencyNanos = smooth(averageReadLatencyNanos, latencyNanos);
+        update();
+    }
+
+    /**
+     * Report entries taken from the entry queue by the deserializer, which follows the consumer's drain rate.
+     */
+    public void recordEntriesProcessed(int entries)
+    {
+        recordEntriesProcessed(entries, System.nanoTime());
+    }
+
+    @VisibleForTesting
+    synchronized void recordEntriesProcessed(int entries, long now)
+    {
+        if (!adaptive) {
+            return;
+        }
+        rateWindowEntries += entries;
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= RATE_INTERVAL_NANOS) {
+            entriesPerSecond = smooth(entriesPerSecond, (double) rateWindowEntries * SECONDS.toNanos(1) / elapsed);
+            rateWindowStart = now;
+            rateWindowEntries = 0;
+            update();
+        }
+    }
+
+    /**
+     * Report {@code messages} messages totalling {@code bytes} payload bytes added to the message queue.
+     */
+    public synchronized void recordMessages(int messages, long bytes)
+    {
+        if (!adaptive || messages <= 0) {
+            return;
+        }
+        averageMessageSize = smooth(averageMessageSize, (double) bytes / messages);
+        update();
+    }
+
+    private void update()
+    {
+        int entryLimit = limitByBudget(maxEntryQueueSize, averageEntrySize);
+        entryQueueLimit = entryLimit;
+        messageQueueLimit = limitByBudget(maxMessageQueueSize, averageMessageSize);
+
+        int batch = maxBatchSize;
+        if (entriesPerSecond > 0 && averageReadLatencyNanos > 0) {
+            double entriesPerRoundTrip = entriesPerSecond * averageReadLatencyNanos / SECONDS.toNanos(1);
+            batch = (int) Math.min(maxBatchSize, Math.max(1, Math.ceil(entriesPerRoundTrip * LATENCY_HEADROOM)));
+        }
+        batchSize = Math.min(batch, entryLimit);
+    }
+
+    private int limitByBudget(int maxSize, double averageSize)
+    {
+        if (queueSizeBytes < 0 || averageSize <= 0) {
+            return maxSize;
+        }
+        return (int) Math.max(1, Math.min(maxSize, queueSizeBytes / averageSize));
+    }
+
+    private static double smooth(double average, double sample)
+    {
+        if (average == 0) {
+            return sample;
+        }
+        return average + SMOOTHING * (sample - average);
+    }
+}
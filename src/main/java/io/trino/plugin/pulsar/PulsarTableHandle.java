@@ -15,10 +15,15 @@ package io.trino.plugin.pulsar;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorTableHandle;
 import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.TupleDomain;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.OptionalLong;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
@@ -44,6 +49,31 @@ public class PulsarTableHandle
      * The topic name that is read from Pulsar.
      */
     private final String topicName;
+
+    /**
+     * The predicate pushed down by the engine, used for split planning and evaluated on every row of a split.
+     */
+    private final TupleDomain<ColumnHandle> constraint;
+
+    /**
+     * Number of rows the engine needs at most, read by every split.
+     */
+    private final OptionalLong limit;
+
+    /**
+     * Whether only the latest {@link #limit} rows of every partition by publish time are read, from its tail.
+     */
+    private final boolean latestByPublishTime;
+
+    /**
+     * Aggregations pushed down by the engine, empty if the rows of the topic are read.
+     */
+    private final List<PulsarAggregateColumnHandle> aggregates;
+
+    /**
+     * Whether the aggregations are grouped by partition.
+     */
+    private final boolean groupedByPartition;
 /**
      * The key message used by Trino.
      */
@@ -59,7 +89,12 @@ public class PulsarTableHandle
             @JsonProperty("connectorId") String connectorId,
             @JsonProperty("schemaName") String schemaName,
             @JsonProperty("tableName") String tableName,
-            @JsonProperty("topicName") String topicName/*, 
+            @JsonProperty("topicName") String topicName,
+            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
+            @JsonProperty("limit") OptionalLong limit,
+            @JsonProperty("latestByPublishTime") boolean latestByPublishTime,
+            @JsonProperty("aggregates") List<PulsarAggregateColumnHandle> aggregates,
+            @JsonProperty("groupedByPartition") boolean groupedByPartition/*,
             @JsonProperty("key") Optional<PulsarTopicFieldGroup> key,
             @JsonProperty("message") Optional<PulsarTopicFieldGroup> message*/)
     {
@@ -67,8 +102,29 @@ public class PulsarTableHandle
         this.schemaName = requireNonNull(schemaName, "schemaName is null");
         this.tableName = requireNonNull(tableName, "tableName is null");
         this.topicName = requireNonNull(topicName, "topicName is null");
-        this.key = key;
-        this.message = message;
+        this.constraint = requireNonNull(constraint, "constraint is null");
+        this.limit = requireNonNull(limit, "limit is null");
+        this.latestByPublishTime = latestByPublishTime;
+        this.aggregates = ImmutableList.copyOf(requireNonNull(aggregates, "aggregates is null"));
+        this.groupedByPartition = groupedByPartition;
+    }
+
+    public PulsarTableHandle(String connectorId, String schemaName, String tableName, String topicName)
+    {
+        this(connectorId, schemaName, tableName, topicName, TupleDomain.all(), OptionalLong.empty(), false,
+                ImmutableList.of(), false);
+    }
+
+    public PulsarTableHandle withConstraint(TupleDomain<ColumnHandle> constraint)
+    {
+        return new PulsarTableHandle(connectorId, schemaName, tableName, topicName, constraint, limit,
+                latestByPublishTime, aggregates, groupedByPartition);
+    }
+
+    public PulsarTableHandle withAggregation(List<PulsarAggregateColumnHandle> aggregates, boolean groupedByPartition)
+    {
+        return new PulsarTableHandle(connectorId, schemaName, tableName, topicName, constraint, limit,
+                latestByPublishTime, aggregates, groupedByPartition);
     }
 
     @JsonProperty
@@ -94,6 +150,53 @@ public class PulsarTableHandle
         return topicName;
     }
 
+    @JsonProperty
+    public TupleDomain<ColumnHandle> getConstraint()
+    {
+        return constraint;
+    }
+
+    public PulsarTableHandle withLimit(long limit)
+    {
+        return new PulsarTableHandle(connectorId, schemaName, tableName, topicName, constraint, OptionalLong.of(limit),
+                latestByPublishTime, aggregates, groupedByPartition);
+    }
+
+    public PulsarTableHandle withLatestByPublishTime(long count)
+    {
+        return new PulsarTableHandle(connectorId, schemaName, tableName, topicName, constraint, OptionalLong.of(count),
+                true, aggregates, groupedByPartition);
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
+    @JsonProperty
+    public boolean isLatestByPublishTime()
+    {
+        return latestByPublishTime;
+    }
+
+    @JsonProperty
+    public List<PulsarAggregateColumnHandle> getAggregates()
+    {
+        return aggregates;
+    }
+
+    @JsonProperty
+    public boolean isGroupedByPartition()
+    {
+        return groupedByPartition;
+    }
+
+    public boolean isAggregated()
+    {
+        return !aggregates.isEmpty();
+    }
+
     public SchemaTableName toSchemaTableName()
     {
         return new SchemaTableName(schemaName, tableName);
@@ -113,7 +216,8 @@ public class PulsarTableHandle
 
     @Override
     public int hashCode() {
-        return Objects.hash(connectorId, schemaName, tableName, topicName);
+        return Objects.hash(connectorId, schemaName, tableName, topicName, constraint, limit, latestByPublishTime,
+                aggregates, groupedByPartition);
     }
 
     @Override
@@ -129,7 +233,12 @@ public class PulsarTableHandle
         return Objects.equals(this.connectorId, other.connectorId)
                 && Objects.equals(this.schemaName, other.schemaName)
                 && Objects.equals(this.tableName, other.tableName)
-                && Objects.equals(this.topicName, other.topicName);
+                && Objects.equals(this.topicName, other.topicName)
+                && Objects.equals(this.constraint, other.constraint)
+                && Objects.equals(this.limit, other.limit)
+                && this.latestByPublishTime == other.latestByPublishTime
+                && Objects.equals(this.aggregates, other.aggregates)
+                && this.groupedByPartition == other.groupedByPartition;
     }
 
     @Override
@@ -139,6 +248,11 @@ public class PulsarTableHandle
                 .add("schemaName", schemaName)
                 .add("tableName", tableName)
                 .add("topicName", topicName)
+                .add("constraint", constraint)
+                .add("limit", limit)
+                .add("latestByPublishTime", latestByPublishTime)
+                .add("aggregates", aggregates)
+                .add("groupedByPartition", groupedByPartition)
                 .toString();
     }
 }
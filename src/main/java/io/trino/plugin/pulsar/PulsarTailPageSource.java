@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.trino.spi.Page;
+import io.trino.spi.connector.ConnectorPageSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Page source returning the latest rows of a partition, for ORDER BY __publish_time__ DESC LIMIT n.
+ *
+ * <p>The range of the split is read in windows from its tail towards its head. The first window holds the
+ * last n entries and every following window is twice as large as the previous one. Windows are read
+ * completely, so the rows they return are exactly the rows of their entries; reading stops once the windows
+ * read returned n rows. A chunked message belongs to the window of its first chunk, as with adjacent splits.
+ * The window factory is closed once the last window was read.
+ */
+public class PulsarTailPageSource
+        implements ConnectorPageSource
+{
+    private final PulsarSplit split;
+    private final long rowCount;
+    private final WindowFactory windowFactory;
+    private final Function<PulsarSplit, ConnectorPageSource> pageSourceFactory;
+
+    private long coveredEntries;
+    private long windowSize;
+    private long rows;
+    private ConnectorPageSource window;
+    private long completedBytes;
+    private long readTimeNanos;
+    private boolean finished;
+
+    public PulsarTailPageSource(
+            PulsarSplit split,
+            long rowCount,
+            WindowFactory windowFactory,
+            Function<PulsarSplit, ConnectorPageSource> pageSourceFactory)
+    {
+        checkArgument(rowCount > 0, "rowCount must be positive");
+        this.split = requireNonNull(split, "split is null");
+        this.rowCount = rowCount;
+        this.windowFactory = requireNonNull(windowFactory, "windowFactory is null");
+        this.pageSourceFactory = requireNonNull(pageSourceFactory, "pageSourceFactory is null");
+        this.windowSize = rowCount;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes + (window == null ? 0 : window.getCompletedBytes());
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos + (window == null ? 0 : window.getReadTimeNanos());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+        if (window == null) {
+            if (rows >= rowCount || coveredEntries >= split.getSplitSize()) {
+                finished = true;
+                windowFactory.close();
+                return null;
+            }
+            long entries = Math.min(windowSize, split.getSplitSize() - coveredEntries);
+            window = pageSourceFactory.apply(windowFactory.create(split, split.getSplitSize() - coveredEntries - entries, entries));
+            coveredEntries += entries;
+            windowSize *= 2;
+        }
+
+        Page page = window.getNextPage();
+        if (page != null) {
+            rows += page.getPositionCount();
+        }
+        if (window.isFinished()) {
+            completedBytes += window.getCompletedBytes();
+            readTimeNanos += window.getReadTimeNanos();
+            window.close();
+            window = null;
+        }
+        return page;
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (finished || window == null) {
+            return NOT_BLOCKED;
+        }
+        return window.isBlocked();
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        return window == null ? 0 : window.getMemoryUsage();
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+        if (window != null) {
+            window.close();
+            window = null;
+        }
+        windowFactory.close();
+    }
+
+    @FunctionalInterface
+    public interface WindowFactory
+    {
+        /**
+         * Returns the split reading {@code entries} entries of {@code split}, from the entry at {@code offset}.
+         */
+        PulsarSplit create(PulsarSplit split, long offset, long entries);
+
+        /**
+         * Release the resources used to resolve the windows, called once no window is created anymore.
+         */
+        default void close()
+        {
+        }
+    }
+}
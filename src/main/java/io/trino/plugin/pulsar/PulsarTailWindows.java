@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.airlift.log.Logger;
+import io.trino.spi.TrinoException;
+import org.apache.bookkeeper.mledger.ManagedLedgerConfig;
+import org.apache.bookkeeper.mledger.ManagedLedgerFactory;
+import org.apache.bookkeeper.mledger.ReadOnlyCursor;
+import org.apache.bookkeeper.mledger.impl.PositionImpl;
+import org.apache.bookkeeper.mledger.impl.ReadOnlyCursorImpl;
+import org.apache.pulsar.common.naming.NamespaceName;
+import org.apache.pulsar.common.naming.TopicName;
+
+import static io.trino.plugin.pulsar.PulsarErrorCode.PULSAR_SPLIT_ERROR;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Resolves the positions of the windows of a {@link PulsarTailPageSource} from the managed ledger, without
+ * reading any entry. A single read-only cursor is opened for all windows of the page source: it is moved back
+ * to the start of the split for every window, and the end of a window is the start of the window resolved
+ * before it, so a window only skips the entries before its start.
+ */
+public class PulsarTailWindows
+        implements PulsarTailPageSource.WindowFactory
+{
+    private static final Logger log = Logger.get(PulsarTailWindows.class);
+
+    private final ManagedLedgerFactory managedLedgerFactory;
+    private final ManagedLedgerConfig managedLedgerConfig;
+
+    private ReadOnlyCursor cursor;
+    // offset in the split and position of the start of the last window
+    private long previousOffset = -1;
+    private PositionImpl previousStart;
+
+    public PulsarTailWindows(ManagedLedgerFactory managedLedgerFactory, ManagedLedgerConfig managedLedgerConfig)
+    {
+        this.managedLedgerFactory = requireNonNull(managedLedgerFactory, "managedLedgerFactory is null");
+        this.managedLedgerConfig = requireNonNull(managedLedgerConfig, "managedLedgerConfig is null");
+    }
+
+    @Override
+    public PulsarSplit create(PulsarSplit split, long offset, long entries)
+    {
+        try {
+            if (cursor == null) {
+                TopicName topicName = TopicName.get("persistent", NamespaceName.get(split.getSchemaName()), split.getTableName());
+                cursor = managedLedgerFactory.openReadOnlyCursor(topicName.getPersistenceNamingEncoding(),
+                        split.getStartPosition(), managedLedgerConfig);
+            }
+            else {
+                // windows are resolved from the tail towards the head of the split
+                ((ReadOnlyCursorImpl) cursor).seek(split.getStartPosition());
+            }
+            cursor.skipEntries(toIntExact(offset));
+            PositionImpl start = (PositionImpl) cursor.getReadPosition();
+            PositionImpl end;
+            if (offset + entries == previousOffset) {
+                end = previousStart;
+            }
+            else {
+                cursor.skipEntries(toIntExact(entries));
+                end = (PositionImpl) cursor.getReadPosition();
+            }
+            previousOffset = offset;
+            previousStart = start;
+            return split.withRange(start, end, entries);
+        }
+        catch (Exception e) {
+            throw new TrinoException(PULSAR_SPLIT_ERROR, "Failed to resolve the tail window of split " + split, e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            }
+            catch (Exception e) {
+                log.error(e, "Failed to close read only cursor");
+            }
+            cursor = null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.trino.decoder.FieldValueProvider;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.Type;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates the predicate of a split on the rows of the split.
+ *
+ * <p>The domains are resolved once per split to the projected columns they constrain, so evaluating a row is a
+ * check of a few domains against the values of the row. Domains on the remaining internal columns are evaluated
+ * before the payload is decoded; domains on decoded columns only extract the columns
+ * they constrain. Domains on columns that are not projected are left to the engine.
+ */
+public class PulsarTupleDomainFilter
+{
+    private static final PulsarTupleDomainFilter ALL = new PulsarTupleDomainFilter(false, ImmutableList.of(), ImmutableList.of());
+
+    private final boolean none;
+    private final ColumnFilter[] internalFilters;
+    private final ColumnFilter[] decodedFilters;
+
+    private PulsarTupleDomainFilter(boolean none, List<ColumnFilter> internalFilters, List<ColumnFilter> decodedFilters)
+    {
+        this.none = none;
+        this.internalFilters = internalFilters.toArray(new ColumnFilter[0]);
+        this.decodedFilters = decodedFilters.toArray(new ColumnFilter[0]);
+    }
+
+    public static PulsarTupleDomainFilter create(List<PulsarColumnHandle> columnHandles, TupleDomain<ColumnHandle> tupleDomain)
+    {
+        requireNonNull(columnHandles, "columnHandles is null");
+        requireNonNull(tupleDomain, "tupleDomain is null");
+        if (tupleDomain.isNone()) {
+            return new PulsarTupleDomainFilter(true, ImmutableList.of(), ImmutableList.of());
+        }
+        Map<ColumnHandle, Domain> domains = tupleDomain.getDomains().get();
+        ImmutableList.Builder<ColumnFilter> internalFilters = ImmutableList.builder();
+        ImmutableList.Builder<ColumnFilter> decodedFilters = ImmutableList.builder();
+        for (int field = 0; field < columnHandles.size(); field++) {
+            PulsarColumnHandle columnHandle = columnHandles.get(field);
+            Domain domain = domains.get(columnHandle);
+            // header columns are already evaluated before the messages are queued, see PulsarMessageHeaderFilter
+            if (domain == null || domain.isAll() || PulsarMessageHeaderFilter.isHeaderColumn(columnHandle)) {
+                continue;
+            }
+            ColumnFilter filter = new ColumnFilter(field, columnHandle.getType(), domain);
+            if (columnHandle.isInternal()) {
+                internalFilters.add(filter);
+            }
+            else {
+                decodedFilters.add(filter);
+            }
+        }
+        List<ColumnFilter> internal = internalFilters.build();
+        List<ColumnFilter> decoded = decodedFilters.build();
+        if (internal.isEmpty() && decoded.isEmpty()) {
+            return ALL;
+        }
+        return new PulsarTupleDomainFilter(false, internal, decoded);
+    }
+
+    /**
+     * Returns true if no row of the split can match.
+     */
+    public boolean isNone()
+    {
+        return none;
+    }
+
+    public boolean hasInternalFilters()
+    {
+        return none || internalFilters.length > 0;
+    }
+
+    public boolean hasDecodedFilters()
+    {
+        return decodedFilters.length > 0;
+    }
+
+    /**
+     * Evaluate the domains of the internal columns on the values of a row, indexed by the projected columns.
+     */
+    public boolean matchesInternalColumns(FieldValueProvider[] row)
+    {
+        return !none && matches(internalFilters, row);
+    }
+
+    /**
+     * Evaluate the domains of the decoded columns on the values of a row, indexed by the projected columns.
+     */
+    public boolean matchesDecodedColumns(FieldValueProvider[] row)
+    {
+        return !none && matches(decodedFilters, row);
+    }
+
+    private static boolean matches(ColumnFilter[] filters, FieldValueProvider[] row)
+    {
+        for (ColumnFilter filter : filters) {
+            if (!filter.matches(row[filter.field])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class ColumnFilter
+    {
+        private final int field;
+        private final Class<?> javaType;
+        private final Domain domain;
+
+        ColumnFilter(int field, Type type, Domain domain)
+        {
+            this.field = field;
+            this.javaType = type.getJavaType();
+            this.domain = domain;
+        }
+
+        boolean matches(FieldValueProvider value)
+        {
+            if (value == null || value.isNull()) {
+                return domain.isNullAllowed();
+            }
+            return domain.includesNullableValue(nativeValue(value));
+        }
+
+        private Object nativeValue(FieldValueProvider value)
+        {
+            if (javaType == long.class) {
+                return value.getLong();
+            }
+            if (javaType == double.class) {
+                return value.getDouble();
+            }
+            if (javaType == boolean.class) {
+                return value.getBoolean();
+            }
+            if (javaType == Slice.class) {
+                return value.getSlice();
+            }
+            return value.getBlock();
+        }
+    }
+}
@@ -13,56 +13,250 @@
  */
 package io.trino.plugin.pulsar.decoder.avro;
 
-import com.google.common.collect.Maps;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
 import io.trino.decoder.avro.AvroColumnDecoder;
 import io.trino.plugin.pulsar.PulsarConnectorUtils;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
 import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.spi.TrinoException;
 import io.trino.spi.block.Block;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.BooleanType;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.IntegerType;
 import io.trino.spi.type.RealType;
+import io.trino.spi.type.SmallintType;
 import io.trino.spi.type.TimestampType;
+import io.trino.spi.type.TinyintType;
 import io.trino.spi.type.Type;
-import org.apache.pulsar.client.api.SchemaSerializationException;
-import org.apache.pulsar.client.impl.schema.generic.GenericAvroRecord;
-import org.apache.pulsar.client.impl.schema.generic.GenericAvroSchema;
-import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
-import org.apache.avro.generic.GenericRecord;
+import io.trino.spi.type.VarcharType;
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.util.Utf8;
+import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Functions.identity;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.trino.decoder.DecoderErrorCode.DECODER_CONVERSION_NOT_SUPPORTED;
-import static io.trino.plugin.pulsar.PulsarErrorCode.PULSAR_SCHEMA_ERROR;
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.spi.type.TimeType.TIME_MILLIS;
+import static io.trino.spi.type.Varchars.truncateToLength;
 import static java.lang.Float.floatToIntBits;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Decodes the binary Avro payload of a message with the schema it was written with.
+ *
+ * <p>The payload is read into a record of the projected schema: the writer schema restricted to the top
+ * level fields of the decoded columns. Avro resolves the two schemas once per reader thread and skips the
+ * other fields without materializing them. The binary decoder and the buffer copying a direct payload are
+ * reused by the thread, records are not as they outlive the message.
+ *
+ * <p>The fields a column is mapped to are resolved once to their positions in the projected schema, and
+ * how its value is read is chosen once from the schema of the field and the type of the column, so a column
+ * is decoded with positional accesses, no lookup by name and no check of the class of its value. Structural
+ * values go through the column decoder.
+ */
 public class PulsarAvroRowDecoder
         implements PulsarRowDecoder
 {
-    private final GenericAvroSchema genericAvroSchema;
+    private static final ThreadLocal<DecodeBuffers> DECODE_BUFFERS = ThreadLocal.withInitial(DecodeBuffers::new);
+
+    private final GenericDatumReader<GenericRecord> datumReader;
     private final Map<DecoderColumnHandle, AvroColumnDecoder> columnDecoders;
-    private final org.apache.avro.Schema stringSchema = org.apache.avro.Schema.create(org.apache.avro.Schema.Type.STRING);
-    private final org.apache.avro.generic.GenericData genericData = new org.apache.avro.generic.GenericData();
+    private final List<DecoderColumnHandle> columns;
+    private final AvroColumnDecoder[] orderedColumnDecoders;
+    private final boolean[] roundToTrinoTime;
+    // per column, the positions of the fields of its mapping in the projected schema; null if not resolved
+    private final int[][] fieldPositions;
+    // per column, the reader of its located value; null if read by the column decoder
+    private final ValueReader[] valueReaders;
+
+    /**
+     * Sets the located value of a column into a holder. It is chosen once from the schema of the field and the
+     * column type, which fix the class of the value, so the value is cast without being checked.
+     */
+    private interface ValueReader
+    {
+        void read(Object fieldValue, PulsarFieldValueHolder value);
+    }
 
-    public PulsarAvroRowDecoder(GenericAvroSchema genericAvroSchema, Set<DecoderColumnHandle> columns)
+    public PulsarAvroRowDecoder(Schema writerSchema, Set<DecoderColumnHandle> columns)
     {
-        this.genericAvroSchema = requireNonNull(genericAvroSchema, "genericAvroSchema is null");
+        requireNonNull(writerSchema, "writerSchema is null");
+        Schema readerSchema = projectSchema(writerSchema, columns);
+        this.datumReader = new GenericDatumReader<>(writerSchema, readerSchema);
         columnDecoders = columns.stream().collect(toImmutableMap(identity(), this::createColumnDecoder));
+        this.columns = ImmutableList.copyOf(columnDecoders.keySet());
+        this.orderedColumnDecoders = new AvroColumnDecoder[this.columns.size()];
+        this.roundToTrinoTime = new boolean[this.columns.size()];
+        this.fieldPositions = new int[this.columns.size()][];
+        this.valueReaders = new ValueReader[this.columns.size()];
+        for (int i = 0; i < this.columns.size(); i++) {
+            DecoderColumnHandle column = this.columns.get(i);
+            orderedColumnDecoders[i] = columnDecoders.get(column);
+            roundToTrinoTime[i] = column.getType() == TimestampType.TIMESTAMP_MILLIS || column.getType() == TIME_MILLIS;
+            fieldPositions[i] = resolveFieldPositions(readerSchema, column.getMapping());
+            // times are rounded from what the column decoder reads
+            if (fieldPositions[i] != null && !roundToTrinoTime[i]) {
+                valueReaders[i] = valueReader(fieldSchema(readerSchema, fieldPositions[i]), column.getType());
+            }
+        }
+    }
+
+    private static int[] resolveFieldPositions(Schema schema, String mapping)
+    {
+        List<String> path = Splitter.on('/').omitEmptyStrings().splitToList(mapping);
+        int[] positions = new int[path.size()];
+        for (int i = 0; i < positions.length; i++) {
+            schema = nonNullType(schema);
+            if (schema == null || schema.getType() != Schema.Type.RECORD || schema.getField(path.get(i)) == null) {
+                return null;
+            }
+            Schema.Field field = schema.getField(path.get(i));
+            positions[i] = field.pos();
+            schema = field.schema();
+        }
+        return positions;
+    }
+
+    /**
+     * The schema of the values of a nullable union, or of a non union schema.
+     */
+    private static Schema nonNullType(Schema schema)
+    {
+        if (schema.getType() != Schema.Type.UNION) {
+            return schema;
+        }
+        Schema nonNullType = null;
+        for (Schema type : schema.getTypes()) {
+            if (type.getType() != Schema.Type.NULL) {
+                if (nonNullType != null) {
+                    return null;
+                }
+                nonNullType = type;
+            }
+        }
+        return nonNullType;
+    }
+
+    private static Schema fieldSchema(Schema schema, int[] positions)
+    {
+        for (int position : positions) {
+            schema = nonNullType(schema).getFields().get(position).schema();
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the reader of the values of a field of {@code schema} into a column of {@code type}, or null if
+     * they are read by the column decoder. The generic datum reader reads a string as a Utf8, or as a String
+     * if the schema asks for it, and an enum symbol as a GenericEnumSymbol.
+     */
+    private static ValueReader valueReader(Schema schema, Type type)
+    {
+        schema = nonNullType(schema);
+        if (schema == null) {
+            return null;
+        }
+        boolean integral = type instanceof BigintType || type instanceof IntegerType || type instanceof SmallintType || type instanceof TinyintType;
+        switch (schema.getType()) {
+            case INT:
+                if (integral) {
+                    return (fieldValue, value) -> value.setLong((Integer) fieldValue);
+                }
+                break;
+            case LONG:
+                if (integral) {
+                    return (fieldValue, value) -> value.setLong((Long) fieldValue);
+                }
+                break;
+            case FLOAT:
+                if (type instanceof RealType) {
+                    return (fieldValue, value) -> value.setLong(floatToIntBits((Float) fieldValue));
+                }
+                if (type instanceof DoubleType) {
+                    return (fieldValue, value) -> value.setDouble((Float) fieldValue);
+                }
+                break;
+            case DOUBLE:
+                if (type instanceof DoubleType) {
+                    return (fieldValue, value) -> value.setDouble((Double) fieldValue);
+                }
+                break;
+            case BOOLEAN:
+                if (type instanceof BooleanType) {
+                    return (fieldValue, value) -> value.setBoolean((Boolean) fieldValue);
+                }
+                break;
+            case STRING:
+                if (type instanceof VarcharType) {
+                    if (GenericData.StringType.String.name().equals(schema.getProp(GenericData.STRING_PROP))) {
+                        return (fieldValue, value) -> value.setSlice(truncateToLength(utf8Slice((String) fieldValue), type));
+                    }
+                    return (fieldValue, value) -> {
+                        Utf8 utf8 = (Utf8) fieldValue;
+                        value.setSlice(truncateToLength(Slices.wrappedBuffer(utf8.getBytes(), 0, utf8.getByteLength()), type));
+                    };
+                }
+                break;
+            case ENUM:
+                if (type instanceof VarcharType) {
+                    return (fieldValue, value) -> value.setSlice(truncateToLength(utf8Slice(fieldValue.toString()), type));
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+
+    /**
+     * The writer schema with only the top level fields the columns are mapped to, in the order of the writer.
+     */
+    private static Schema projectSchema(Schema writerSchema, Set<DecoderColumnHandle> columns)
+    {
+        if (writerSchema.getType() != Schema.Type.RECORD) {
+            return writerSchema;
+        }
+        Set<String> projectedFields = new HashSet<>();
+        for (DecoderColumnHandle column : columns) {
+            if (column.getMapping() == null) {
+                return writerSchema;
+            }
+            projectedFields.add(column.getMapping().split("/", 2)[0]);
+        }
+        List<Schema.Field> fields = writerSchema.getFields().stream()
+                .filter(field -> projectedFields.contains(field.name()))
+                .map(field -> new Schema.Field(field, field.schema()))
+                .collect(toImmutableList());
+        return Schema.createRecord(writerSchema.getName(), writerSchema.getDoc(), writerSchema.getNamespace(), writerSchema.isError(), fields);
+    }
+
+    @Override
+    public List<DecoderColumnHandle> getColumns()
+    {
+        return columns;
     }
 
     private AvroColumnDecoder createColumnDecoder(DecoderColumnHandle columnHandle)
@@ -71,7 +265,7 @@ public class PulsarAvroRowDecoder
     }
 
     /**
-     * Decode ByteBuf by {@link org.apache.pulsar.client.api.schema.GenericSchema}.
+     * Decode ByteBuf into the columns of the projected record.
      *
      * @param byteBuf
      * @return
@@ -79,16 +273,9 @@ public class PulsarAvroRowDecoder
     @Override
     public Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodeRow(ByteBuf byteBuf)
     {
-        GenericRecord avroRecord;
-        try {
-            GenericAvroRecord record = (GenericAvroRecord) genericAvroSchema.decode(byteBuf);
-            avroRecord = record.getAvroRecord();
-        }
-        catch (SchemaSerializationException e) {
-            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Decoding avro record failed.", e);
-        }
+        GenericRecord record = decodeAvroRecord(byteBuf);
         return Optional.of(columnDecoders.entrySet().stream().collect(toImmutableMap(Map.Entry::getKey, entry -> {
-            FieldValueProvider fieldValueProvider = entry.getValue().decodeField(toOriginalGenericRecord(avroRecord));
+            FieldValueProvider fieldValueProvider = entry.getValue().decodeField(record);
             if (entry.getKey().getType() == TimestampType.TIMESTAMP_MILLIS || entry.getKey().getType() == TIME_MILLIS) {
                 fieldValueProvider = new PulsarAvroFieldValueProvider(fieldValueProvider, fieldValueProvider.getLong(), entry.getKey().getType(), entry.getKey().getName());
             }
@@ -96,6 +283,84 @@ public class PulsarAvroRowDecoder
         })));
     }
 
+    @Override
+    public Object decodeRecord(ByteBuf byteBuf)
+    {
+        return decodeAvroRecord(byteBuf);
+    }
+
+    @Override
+    public void decodeColumn(Object record, int column, PulsarFieldValueHolder value)
+    {
+        ValueReader valueReader = valueReaders[column];
+        if (valueReader == null) {
+            // structural values, and values the column decoder converts
+            decodeColumnValue((GenericRecord) record, column, value);
+            return;
+        }
+        Object fieldValue = record;
+        for (int position : fieldPositions[column]) {
+            if (fieldValue == null) {
+                break;
+            }
+            fieldValue = ((GenericRecord) fieldValue).get(position);
+        }
+        if (fieldValue == null) {
+            value.setNull();
+            return;
+        }
+        valueReader.read(fieldValue, value);
+    }
+
+    private void decodeColumnValue(GenericRecord record, int column, PulsarFieldValueHolder value)
+    {
+        FieldValueProvider fieldValueProvider = orderedColumnDecoders[column].decodeField(record);
+        if (roundToTrinoTime[column] && !fieldValueProvider.isNull()) {
+            value.setLong(PulsarConnectorUtils.roundToTrinoTime(fieldValueProvider.getLong()));
+        }
+        else {
+            value.setProvider(fieldValueProvider);
+        }
+    }
+
+    private GenericRecord decodeAvroRecord(ByteBuf byteBuf)
+    {
+        DecodeBuffers buffers = DECODE_BUFFERS.get();
+        int length = byteBuf.readableBytes();
+        byte[] bytes;
+        int offset;
+        if (byteBuf.hasArray()) {
+            bytes = byteBuf.array();
+            offset = byteBuf.arrayOffset() + byteBuf.readerIndex();
+        }
+        else {
+            bytes = buffers.payload(length);
+            offset = 0;
+            byteBuf.getBytes(byteBuf.readerIndex(), bytes, 0, length);
+        }
+        try {
+            buffers.decoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, buffers.decoder);
+            return datumReader.read(null, buffers.decoder);
+        }
+        catch (IOException | AvroRuntimeException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Decoding avro record failed.", e);
+        }
+    }
+
+    private static class DecodeBuffers
+    {
+        private BinaryDecoder decoder;
+        private byte[] payload = new byte[0];
+
+        byte[] payload(int length)
+        {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            return payload;
+        }
+    }
+
     private class PulsarAvroFieldValueProvider
             extends FieldValueProvider
     {
@@ -157,129 +422,4 @@ public class PulsarAvroRowDecoder
             return delegate.getBlock();
         }
     }
-
-    private org.apache.avro.Schema toOriginalSchema(Schema schema)
-    {
-        switch (schema.getType()) {
-            case STRING:
-            case BYTES:
-            case INT:
-            case LONG:
-            case FLOAT:
-            case DOUBLE:
-            case BOOLEAN:
-            case NULL:
-                return org.apache.avro.Schema.create(org.apache.avro.Schema.Type.valueOf(schema.getType().getName().toUpperCase(Locale.ENGLISH)));
-            case RECORD:
-                List<org.apache.avro.Schema.Field> fields = schema.getFields()
-                        .stream()
-                        .map(this::toOriginalField)
-                        .collect(Collectors.toList());
-                return org.apache.avro.Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.isError(), fields);
-            case ENUM:
-                return org.apache.avro.Schema.createEnum(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.getEnumSymbols(), schema.getEnumDefault());
-            case ARRAY:
-                return org.apache.avro.Schema.createArray(toOriginalSchema(schema.getElementType()));
-            case MAP:
-                return org.apache.avro.Schema.createMap(toOriginalSchema(schema.getValueType()));
-            case UNION:
-                List<org.apache.avro.Schema> types = schema.getTypes()
-                        .stream()
-                        .map(this::toOriginalSchema)
-                        .collect(Collectors.toList());
-                return org.apache.avro.Schema.createUnion(types);
-            case FIXED:
-                return org.apache.avro.Schema.createFixed(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.getFixedSize());
-            default:
-                throw new TrinoException(PULSAR_SCHEMA_ERROR, format("schema type %s not supported", schema.getFullName()), null);
-        }
-    }
-
-    private org.apache.avro.Schema.Field toOriginalField(Schema.Field field)
-    {
-        return new org.apache.avro.Schema.Field(
-                field.name(),
-                toOriginalSchema(field.schema()),
-                field.doc(),
-                null,
-                org.apache.avro.Schema.Field.Order.valueOf(field.order().name().toUpperCase(Locale.ENGLISH)));
-    }
-
-    private Object toOriginalType(Object in, org.apache.avro.Schema schema)
-    {
-        if (in instanceof GenericRecord) {
-            return toOriginalGenericRecord((GenericRecord) in);
-        }
-        else if (in instanceof Map) {
-            return ((Map<?, ?>) in).entrySet().stream().map(entry -> {
-                org.apache.avro.Schema valueSchema = null;
-                // unnest union
-                if (schema.isUnion()) {
-                    for (org.apache.avro.Schema unionType : schema.getTypes()) {
-                        if (unionType.getType() != org.apache.avro.Schema.Type.NULL) {
-                            valueSchema = unionType.getValueType();
-                        }
-                    }
-                }
-                else {
-                    valueSchema = schema.getValueType();
-                }
-                return Maps.immutableEntry(genericData.deepCopy(stringSchema, convertString(entry.getKey())), genericData.deepCopy(valueSchema, toOriginalType(entry.getValue(), valueSchema)));
-            }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        }
-        else if (in instanceof GenericEnumSymbol) {
-            return toOriginalGenericEnumSymbol((GenericEnumSymbol) in);
-        }
-        else if (in instanceof GenericFixed) {
-            return toOriginalGenericFixed((GenericFixed) in);
-        }
-        else if (in instanceof GenericArray) {
-            return toOriginalGenericArray((GenericArray) in, schema);
-        }
-        else if (in instanceof Utf8) {
-            return toOriginalUtf8((Utf8) in);
-        }
-        return in;
-    }
-
-    private Object convertString(Object in)
-    {
-        if (in instanceof String) {
-            return in;
-        }
-        else if (in instanceof Utf8) {
-            return toOriginalUtf8((Utf8) in);
-        }
-        return new Utf8(in.toString());
-    }
-
-    private org.apache.avro.generic.GenericRecord toOriginalGenericRecord(GenericRecord avroRecord)
-    {
-        org.apache.avro.Schema schema = toOriginalSchema(avroRecord.getSchema());
-        org.apache.avro.generic.GenericRecordBuilder recordBuilder = new org.apache.avro.generic.GenericRecordBuilder(schema);
-        for (int index = 0; index < avroRecord.getSchema().getFields().size(); index++) {
-            recordBuilder.set(schema.getFields().get(index), toOriginalType(avroRecord.get(index), schema.getFields().get(index).schema()));
-        }
-        return recordBuilder.build();
-    }
-
-    private org.apache.avro.generic.GenericEnumSymbol toOriginalGenericEnumSymbol(GenericEnumSymbol enumSymbol)
-    {
-        return new org.apache.avro.generic.GenericData.EnumSymbol(toOriginalSchema(enumSymbol.getSchema()), enumSymbol.toString());
-    }
-
-    private org.apache.avro.generic.GenericArray toOriginalGenericArray(GenericArray array, org.apache.avro.Schema schema)
-    {
-        return new org.apache.avro.generic.GenericData.Array(toOriginalSchema(array.getSchema()), (Collection) array.subList(0, array.size()).stream().map(element -> toOriginalType(element, schema)).collect(Collectors.toCollection(ArrayList::new)));
-    }
-
-    private org.apache.avro.util.Utf8 toOriginalUtf8(Utf8 utf8)
-    {
-        return new org.apache.avro.util.Utf8(utf8.toString());
-    }
-
-    private org.apache.avro.generic.GenericFixed toOriginalGenericFixed(GenericFixed fixed)
-    {
-        return new org.apache.avro.generic.GenericData.Fixed(toOriginalSchema(fixed.getSchema()), fixed.bytes());
-    }
 }
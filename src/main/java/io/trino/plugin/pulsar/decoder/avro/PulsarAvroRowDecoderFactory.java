@@ -38,7 +38,6 @@ import io.trino.spi.type.TypeSignature;
 import io.trino.spi.type.TypeSignatureParameter;
 import io.trino.spi.type.VarbinaryType;
 import io.trino.spi.type.VarcharType;
-import org.apache.pulsar.client.impl.schema.generic.GenericAvroSchema;
 import org.apache.pulsar.client.impl.schema.generic.GenericJsonSchema;
 
 
@@ -85,7 +84,14 @@ public class PulsarAvroRowDecoderFactory
     @Override
     public PulsarRowDecoder createRowDecoder(TopicName topicName, SchemaInfo schemaInfo, Set<DecoderColumnHandle> columns)
     {
-        return new PulsarAvroRowDecoder((GenericAvroSchema) GenericAvroSchema.of(schemaInfo), columns);
+        Schema writerSchema;
+        try {
+            writerSchema = new Schema.Parser().setValidateDefaults(false).parse(new String(schemaInfo.getSchema(), StandardCharsets.UTF_8));
+        }
+        catch (SchemaParseException ex) {
+            throw new TrinoException(PULSAR_SCHEMA_ERROR, "Topic " + topicName.toString() + " does not have a valid schema");
+        }
+        return new PulsarAvroRowDecoder(writerSchema, columns);
     }
 
     @Override
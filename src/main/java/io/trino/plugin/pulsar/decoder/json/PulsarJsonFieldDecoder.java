@@ -13,6 +13,8 @@
  */
 package io.trino.plugin.pulsar.decoder.json;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -43,6 +45,7 @@ import io.trino.spi.type.Type;
 import io.trino.spi.type.VarbinaryType;
 import io.trino.spi.type.VarcharType;
 
+import java.io.IOException;
 import java.util.AbstractMap;
 import java.util.Iterator;
 import java.util.List;
@@ -76,6 +79,10 @@ public class PulsarJsonFieldDecoder
     private final DecoderColumnHandle pulsarColumnHandle;
     private final long pulsarColumnMinValue;
     private final long pulsarColumnMaxValue;
+    // how a scalar token is read into the value of the column, fixed by its type
+    private final boolean real;
+    private final boolean roundToTrinoTime;
+    private final boolean truncate;
 
     public PulsarJsonFieldDecoder(DecoderColumnHandle columnHandle)
     {
@@ -86,6 +93,10 @@ public class PulsarJsonFieldDecoder
         AbstractMap.SimpleEntry<Long, Long> range = getNumRangeByType(pulsarColumnHandle.getType());
         pulsarColumnMinValue = range.getKey();
         pulsarColumnMaxValue = range.getValue();
+        Type type = pulsarColumnHandle.getType();
+        real = type instanceof RealType;
+        roundToTrinoTime = type == TimestampType.TIMESTAMP_MILLIS || type == TIME_MILLIS;
+        truncate = type instanceof VarcharType;
     }
 
     private static AbstractMap.SimpleEntry<Long, Long> getNumRangeByType(Type type)
@@ -156,6 +167,104 @@ public class PulsarJsonFieldDecoder
         return new PulsarJsonValueProvider(value, pulsarColumnHandle, pulsarColumnMinValue, pulsarColumnMaxValue);
     }
 
+    /**
+     * Read the scalar token the parser is at as {@link PulsarJsonValueProvider#getLong()} reads its node.
+     */
+    public long readLong(JsonParser parser)
+            throws IOException
+    {
+        long value = readLongValue(parser);
+        return roundToTrinoTime ? PulsarConnectorUtils.roundToTrinoTime(value) : value;
+    }
+
+    private long readLongValue(JsonParser parser)
+            throws IOException
+    {
+        try {
+            if (real) {
+                return floatToIntBits(parseFloat(text(parser)));
+            }
+
+            long longValue;
+            if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                longValue = parser.getLongValue();
+            }
+            else {
+                longValue = parseLong(text(parser));
+            }
+            if (longValue >= pulsarColumnMinValue && longValue <= pulsarColumnMaxValue) {
+                return longValue;
+            }
+        }
+        catch (NumberFormatException ignore) {
+            // ignore
+        }
+        throw new TrinoException(DECODER_CONVERSION_NOT_SUPPORTED, format("could not parse value '%s' as '%s' for column '%s'", text(parser), pulsarColumnHandle.getType(), pulsarColumnHandle.getName()));
+    }
+
+    /**
+     * Read the scalar token the parser is at as {@link PulsarJsonValueProvider#getDouble()} reads its node.
+     */
+    public double readDouble(JsonParser parser)
+            throws IOException
+    {
+        try {
+            if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT || parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+                return parser.getDoubleValue();
+            }
+            return parseDouble(text(parser));
+        }
+        catch (NumberFormatException ignore) {
+            // ignore
+        }
+        throw new TrinoException(DECODER_CONVERSION_NOT_SUPPORTED, format("could not parse value '%s' as '%s' for column '%s'", text(parser), pulsarColumnHandle.getType(), pulsarColumnHandle.getName()));
+    }
+
+    /**
+     * Read the scalar token the parser is at as {@link JsonNode#asBoolean()} reads its node.
+     */
+    public boolean readBoolean(JsonParser parser)
+            throws IOException
+    {
+        switch (parser.currentToken()) {
+            case VALUE_TRUE:
+                return true;
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getBigIntegerValue().signum() != 0 : parser.getLongValue() != 0;
+            case VALUE_STRING:
+                return "true".equals(parser.getText().trim());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Read the scalar token the parser is at as {@link PulsarJsonValueProvider#getSlice()} reads its node.
+     */
+    public Slice readSlice(JsonParser parser)
+            throws IOException
+    {
+        Slice slice = utf8Slice(text(parser));
+        return truncate ? truncateToLength(slice, pulsarColumnHandle.getType()) : slice;
+    }
+
+    /**
+     * The text of the scalar token the parser is at, as {@link JsonNode#asText()} of its node.
+     */
+    private static String text(JsonParser parser)
+            throws IOException
+    {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getBigIntegerValue().toString() : String.valueOf(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                // a DoubleNode
+                return Double.toString(parser.getDoubleValue());
+            default:
+                return parser.getText();
+        }
+    }
+
     /**
      * JsonValueProvider.
      */
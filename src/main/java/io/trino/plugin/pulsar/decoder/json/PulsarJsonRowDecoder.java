@@ -13,21 +13,28 @@
  */
 package io.trino.plugin.pulsar.decoder.json;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
-import io.trino.decoder.json.JsonFieldDecoder;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
 import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.plugin.pulsar.util.ObjectMapperFactory;
 import io.trino.spi.TrinoException;
-import org.apache.pulsar.client.impl.schema.generic.GenericJsonRecord;
-import org.apache.pulsar.client.impl.schema.generic.GenericJsonSchema;
-import org.apache.pulsar.shade.com.fasterxml.jackson.databind.JsonNode;
-import org.apache.pulsar.shade.com.fasterxml.jackson.databind.node.MissingNode;
+import io.trino.spi.type.Type;
 import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
+import org.apache.pulsar.shade.io.netty.buffer.ByteBufInputStream;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -35,42 +42,58 @@ import java.util.Set;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
-import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
 
 /**
  * Pulsar {@link org.apache.pulsar.shade.org.apache.pulsar.common.schema.SchemaType#JSON} RowDecoder.
+ *
+ * <p>The payload is read in a single pass by a streaming parser, guided by a tree of the paths of the
+ * decoded columns. Only the values of those paths are read; every other value is skipped without building
+ * a tree. The scalar token of a column is read straight into its value, of the kind fixed by the type of the
+ * column, and only ROW, ARRAY and MAP columns, or columns holding an object or an array, are read as nodes.
+ * A missing path is null, as with a lookup in the whole tree.
  */
 public class PulsarJsonRowDecoder
         implements PulsarRowDecoder
 {
-    private final Map<DecoderColumnHandle, JsonFieldDecoder> fieldDecoders;
+    private final Map<DecoderColumnHandle, PulsarJsonFieldDecoder> fieldDecoders;
 
-    private final GenericJsonSchema genericJsonSchema;
+    private final List<DecoderColumnHandle> columns;
+    private final PulsarJsonFieldDecoder[] orderedFieldDecoders;
+    private final ValueKind[] valueKinds;
+    private final PathNode root = new PathNode();
 
-    public PulsarJsonRowDecoder(GenericJsonSchema genericJsonSchema,
-                                Set<DecoderColumnHandle> columns)
+    public PulsarJsonRowDecoder(Set<DecoderColumnHandle> columns)
     {
-        this.genericJsonSchema = requireNonNull(genericJsonSchema, "genericJsonSchema is null");
         this.fieldDecoders = columns.stream().collect(toImmutableMap(identity(), PulsarJsonFieldDecoder::new));
+        this.columns = ImmutableList.copyOf(fieldDecoders.keySet());
+        this.orderedFieldDecoders = this.columns.stream().map(fieldDecoders::get).toArray(PulsarJsonFieldDecoder[]::new);
+        this.valueKinds = this.columns.stream().map(column -> ValueKind.forType(column.getType())).toArray(ValueKind[]::new);
+        for (int column = 0; column < this.columns.size(); column++) {
+            PathNode node = root;
+            for (String pathElement : path(this.columns.get(column))) {
+                node = node.children.computeIfAbsent(pathElement, key -> new PathNode());
+            }
+            node.columns.add(column);
+            node.structural |= valueKinds[column] == ValueKind.NODE;
+        }
+    }
+
+    @Override
+    public List<DecoderColumnHandle> getColumns()
+    {
+        return columns;
     }
 
-    private static JsonNode locateNode(JsonNode tree, DecoderColumnHandle columnHandle)
+    private static List<String> path(DecoderColumnHandle columnHandle)
     {
         String mapping = columnHandle.getMapping();
         checkState(mapping != null, "No mapping for %s", columnHandle.getName());
-        JsonNode currentNode = tree;
-        for (String pathElement : Splitter.on('/').omitEmptyStrings().split(mapping)) {
-            if (!currentNode.has(pathElement)) {
-                return MissingNode.getInstance();
-            }
-            currentNode = currentNode.path(pathElement);
-        }
-        return currentNode;
+        return ImmutableList.copyOf(Splitter.on('/').omitEmptyStrings().split(mapping));
     }
 
     /**
-     * decode ByteBuf by {@link org.apache.pulsar.client.api.schema.GenericSchema}.
+     * decode ByteBuf into the values of the decoded columns.
      *
      * @param byteBuf
      * @return
@@ -78,20 +101,236 @@ public class PulsarJsonRowDecoder
     @Override
     public Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodeRow(ByteBuf byteBuf)
     {
-        GenericJsonRecord record = (GenericJsonRecord) genericJsonSchema.decode(byteBuf);
-        Map<DecoderColumnHandle, FieldValueProvider> decodedRow = new HashMap<>();
-        for (Map.Entry<DecoderColumnHandle, JsonFieldDecoder> entry : fieldDecoders.entrySet()) {
-            DecoderColumnHandle columnHandle = entry.getKey();
-            JsonFieldDecoder decoder = entry.getValue();
-            com.fasterxml.jackson.databind.JsonNode node = null;
-            try {
-                node = ObjectMapperFactory.toOriginalJsonNode(locateNode(record.getJsonNode(), columnHandle));
+        Object record = decodeRecord(byteBuf);
+        ImmutableMap.Builder<DecoderColumnHandle, FieldValueProvider> values = ImmutableMap.builder();
+        for (int column = 0; column < columns.size(); column++) {
+            PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+            decodeColumn(record, column, value);
+            values.put(columns.get(column), value);
+        }
+        return Optional.of(values.buildOrThrow());
+    }
+
+    @Override
+    public Object decodeRecord(ByteBuf byteBuf)
+    {
+        JsonRecord record = new JsonRecord(columns.size());
+        if (columns.isEmpty()) {
+            return record;
+        }
+        ObjectMapper mapper = ObjectMapperFactory.getThreadLocal();
+        try (JsonParser parser = createParser(mapper, byteBuf)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                readObject(mapper, parser, root, record);
             }
-            catch (JsonProcessingException e) {
-                throw new TrinoException(GENERIC_INTERNAL_ERROR, "Decoding json record failed.", e);
+        }
+        catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Decoding json record failed.", e);
+        }
+        return record;
+    }
+
+    @Override
+    public void decodeColumn(Object record, int column, PulsarFieldValueHolder value)
+    {
+        JsonRecord jsonRecord = (JsonRecord) record;
+        switch (jsonRecord.states[column]) {
+            case JsonRecord.VALUE:
+                switch (valueKinds[column]) {
+                    case LONG:
+                        value.setLong(jsonRecord.values[column]);
+                        break;
+                    case DOUBLE:
+                        value.setDouble(Double.longBitsToDouble(jsonRecord.values[column]));
+                        break;
+                    case BOOLEAN:
+                        value.setBoolean(jsonRecord.values[column] != 0);
+                        break;
+                    default:
+                        value.setSlice((Slice) jsonRecord.objects[column]);
+                        break;
+                }
+                break;
+            case JsonRecord.NODE:
+                value.setProvider(orderedFieldDecoders[column].decode((JsonNode) jsonRecord.objects[column]));
+                break;
+            case JsonRecord.FAILED:
+                throw (TrinoException) jsonRecord.objects[column];
+            default:
+                value.setNull();
+                break;
+        }
+    }
+
+    private static JsonParser createParser(ObjectMapper mapper, ByteBuf byteBuf)
+            throws IOException
+    {
+        if (byteBuf.hasArray()) {
+            return mapper.getFactory().createParser(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+        }
+        return mapper.getFactory().createParser(new ByteBufInputStream(byteBuf.slice()));
+    }
+
+    /**
+     * Read the fields of the object the parser is at the start of, up to its end.
+     */
+    private void readObject(ObjectMapper mapper, JsonParser parser, PathNode node, JsonRecord record)
+            throws IOException
+    {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            PathNode child = node.children.get(parser.getCurrentName());
+            JsonToken token = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            }
+            else if (!child.columns.isEmpty()) {
+                if (child.structural || !child.children.isEmpty() || token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    JsonNode value = mapper.readTree(parser);
+                    for (int column : child.columns) {
+                        record.setNode(column, value);
+                    }
+                    if (!child.children.isEmpty()) {
+                        locateChildren(value, child, record);
+                    }
+                }
+                else {
+                    for (int column : child.columns) {
+                        readScalar(parser, token, column, record);
+                    }
+                }
+            }
+            else if (token == JsonToken.START_OBJECT) {
+                readObject(mapper, parser, child, record);
+            }
+            else {
+                parser.skipChildren();
             }
-            decodedRow.put(columnHandle, decoder.decode(node));
         }
-        return Optional.of(decodedRow);
+    }
+
+    /**
+     * Read the scalar token the parser is at into the value of {@code column}. A value the column cannot hold
+     * fails when the column is decoded, as when its node is read by the provider of the column.
+     */
+    private void readScalar(JsonParser parser, JsonToken token, int column, JsonRecord record)
+            throws IOException
+    {
+        if (token == JsonToken.VALUE_NULL) {
+            record.states[column] = JsonRecord.NULL;
+            record.objects[column] = null;
+            return;
+        }
+        PulsarJsonFieldDecoder fieldDecoder = orderedFieldDecoders[column];
+        try {
+            switch (valueKinds[column]) {
+                case LONG:
+                    record.values[column] = fieldDecoder.readLong(parser);
+                    break;
+                case DOUBLE:
+                    record.values[column] = Double.doubleToRawLongBits(fieldDecoder.readDouble(parser));
+                    break;
+                case BOOLEAN:
+                    record.values[column] = fieldDecoder.readBoolean(parser) ? 1 : 0;
+                    break;
+                default:
+                    record.objects[column] = fieldDecoder.readSlice(parser);
+                    break;
+            }
+            record.states[column] = JsonRecord.VALUE;
+        }
+        catch (TrinoException e) {
+            record.states[column] = JsonRecord.FAILED;
+            record.objects[column] = e;
+        }
+    }
+
+    /**
+     * Set the columns of the paths below {@code node} from {@code value}, read whole for a column of its own.
+     */
+    private static void locateChildren(JsonNode value, PathNode node, JsonRecord record)
+    {
+        for (Map.Entry<String, PathNode> entry : node.children.entrySet()) {
+            if (!value.has(entry.getKey())) {
+                continue;
+            }
+            JsonNode child = value.path(entry.getKey());
+            for (int column : entry.getValue().columns) {
+                record.setNode(column, child);
+            }
+            locateChildren(child, entry.getValue(), record);
+        }
+    }
+
+    /**
+     * Kind of the value of a column, fixed by its type.
+     */
+    private enum ValueKind
+    {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        SLICE,
+        // ROW, ARRAY and MAP columns, read as nodes
+        NODE;
+
+        static ValueKind forType(Type type)
+        {
+            Class<?> javaType = type.getJavaType();
+            if (javaType == long.class) {
+                return LONG;
+            }
+            if (javaType == double.class) {
+                return DOUBLE;
+            }
+            if (javaType == boolean.class) {
+                return BOOLEAN;
+            }
+            if (javaType == Slice.class) {
+                return SLICE;
+            }
+            return NODE;
+        }
+    }
+
+    /**
+     * Values of the decoded columns of a message. A value is held unboxed in {@code values}, a long, the bits
+     * of a double or a boolean as 0 or 1, or in {@code objects}: a slice, a node, or the failure of its read.
+     */
+    static final class JsonRecord
+    {
+        static final byte NULL = 0;
+        static final byte VALUE = 1;
+        static final byte NODE = 2;
+        static final byte FAILED = 3;
+
+        private final byte[] states;
+        private final long[] values;
+        private final Object[] objects;
+
+        JsonRecord(int columns)
+        {
+            this.states = new byte[columns];
+            this.values = new long[columns];
+            this.objects = new Object[columns];
+        }
+
+        private void setNode(int column, JsonNode node)
+        {
+            states[column] = NODE;
+            objects[column] = node;
+        }
+
+        boolean isNode(int column)
+        {
+            return states[column] == NODE;
+        }
+    }
+
+    private static class PathNode
+    {
+        private final Map<String, PathNode> children = new HashMap<>();
+        private final List<Integer> columns = new ArrayList<>();
+        // whether a column of the path is read as a node
+        private boolean structural;
     }
 }
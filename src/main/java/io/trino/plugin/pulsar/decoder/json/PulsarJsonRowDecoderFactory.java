@@ -82,7 +82,7 @@ public class PulsarJsonRowDecoderFactory
     @Override
     public PulsarJsonRowDecoder createRowDecoder(TopicName topicName, SchemaInfo schemaInfo, Set<DecoderColumnHandle> columns)
     {
-        return new PulsarJsonRowDecoder((GenericJsonSchema) GenericJsonSchema.of(schemaInfo), columns);
+        return new PulsarJsonRowDecoder(columns);
     }
 
     @Override
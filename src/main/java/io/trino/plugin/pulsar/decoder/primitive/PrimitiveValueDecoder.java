@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar.decoder.primitive;
+
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
+import io.trino.spi.type.Type;
+import org.apache.pulsar.common.schema.SchemaType;
+import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
+
+/**
+ * Decoders of the fixed width values of primitive schemas, read from the payload as Pulsar encodes them:
+ * big endian, a float or double by its bits, a boolean as one byte, and a date, time or timestamp as the
+ * long of its epoch millis.
+ */
+enum PrimitiveValueDecoder
+{
+    INT8(1, long.class),
+    INT16(2, long.class),
+    INT32(4, long.class),
+    INT64(8, long.class),
+    // the bits of the float, as held by a REAL value
+    FLOAT(4, long.class),
+    DOUBLE(8, double.class),
+    BOOLEAN(1, boolean.class),
+    MILLIS(8, long.class);
+
+    private final int width;
+    private final Class<?> javaType;
+
+    PrimitiveValueDecoder(int width, Class<?> javaType)
+    {
+        this.width = width;
+        this.javaType = javaType;
+    }
+
+    /**
+     * Returns the decoder of the values of {@code schemaType} into a column of {@code type}, or null if the
+     * values are not of a fixed width or the column does not hold them.
+     */
+    static PrimitiveValueDecoder forSchema(SchemaType schemaType, Type type)
+    {
+        PrimitiveValueDecoder decoder;
+        switch (schemaType) {
+            case INT8:
+                decoder = INT8;
+                break;
+            case INT16:
+                decoder = INT16;
+                break;
+            case INT32:
+                decoder = INT32;
+                break;
+            case INT64:
+                decoder = INT64;
+                break;
+            case FLOAT:
+                decoder = FLOAT;
+                break;
+            case DOUBLE:
+                decoder = DOUBLE;
+                break;
+            case BOOLEAN:
+                decoder = BOOLEAN;
+                break;
+            case DATE:
+            case TIME:
+            case TIMESTAMP:
+                decoder = MILLIS;
+                break;
+            default:
+                return null;
+        }
+        return type.getJavaType() == decoder.javaType ? decoder : null;
+    }
+
+    /**
+     * Whether {@code byteBuf} holds exactly one value. Other payloads are left to the schema, which rejects them.
+     */
+    boolean accepts(ByteBuf byteBuf)
+    {
+        return byteBuf.readableBytes() == width;
+    }
+
+    /**
+     * Read the value at the reader index of {@code byteBuf} as the bits of a {@link PulsarPrimitiveRowDecoder.PrimitiveRecord},
+     * set into a holder by {@link #setBits(long, PulsarFieldValueHolder)}.
+     */
+    long readBits(ByteBuf byteBuf)
+    {
+        int index = byteBuf.readerIndex();
+        switch (this) {
+            case BOOLEAN:
+                return byteBuf.getByte(index) != 0 ? 1 : 0;
+            default:
+                return readLong(byteBuf, index);
+        }
+    }
+
+    void setBits(long bits, PulsarFieldValueHolder holder)
+    {
+        switch (this) {
+            case DOUBLE:
+                holder.setDouble(Double.longBitsToDouble(bits));
+                break;
+            case BOOLEAN:
+                holder.setBoolean(bits != 0);
+                break;
+            default:
+                holder.setLong(bits);
+                break;
+        }
+    }
+
+    private long readLong(ByteBuf byteBuf, int index)
+    {
+        switch (this) {
+            case INT8:
+                return byteBuf.getByte(index);
+            case INT16:
+                return byteBuf.getShort(index);
+            case INT32:
+            case FLOAT:
+                return byteBuf.getInt(index);
+            default:
+                return byteBuf.getLong(index);
+        }
+    }
+}
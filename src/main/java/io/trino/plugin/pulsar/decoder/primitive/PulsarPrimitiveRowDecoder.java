@@ -13,9 +13,11 @@
  */
 package io.trino.plugin.pulsar.decoder.primitive;
 
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
-import io.trino.decoder.FieldValueProviders;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
 import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.spi.type.BigintType;
 import io.trino.spi.type.BooleanType;
@@ -31,31 +33,68 @@ import io.trino.spi.type.Type;
 import io.trino.spi.type.VarbinaryType;
 import io.trino.spi.type.VarcharType;
 import org.apache.pulsar.client.impl.schema.AbstractSchema;
+import org.apache.pulsar.common.schema.SchemaInfo;
+import org.apache.pulsar.common.schema.SchemaType;
 import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.charset.Charset;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import static io.trino.decoder.FieldValueProviders.booleanValueProvider;
-import static io.trino.decoder.FieldValueProviders.bytesValueProvider;
-import static io.trino.decoder.FieldValueProviders.longValueProvider;
-import static io.trino.plugin.pulsar.PulsarFieldValueProviders.doubleValueProvider;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class PulsarPrimitiveRowDecoder
         implements PulsarRowDecoder
 {
+    // property of the schema info holding the charset of a STRING schema, see StringSchema
+    private static final String CHARSET_PROPERTY = "__charset";
+
     private final DecoderColumnHandle columnHandle;
+    private final List<DecoderColumnHandle> columns;
     private AbstractSchema schema;
+    private final boolean rawPayload;
+    // decoder of a fixed width value read straight from the payload; null if decoded by the schema
+    private final PrimitiveValueDecoder valueDecoder;
 
     public PulsarPrimitiveRowDecoder(AbstractSchema schema, DecoderColumnHandle columnHandle)
     {
         this.columnHandle = columnHandle;
+        this.columns = columnHandle == null ? ImmutableList.of() : ImmutableList.of(columnHandle);
         this.schema = schema;
+        this.rawPayload = columnHandle != null && isRawPayload(schema.getSchemaInfo(), columnHandle.getType());
+        this.valueDecoder = columnHandle == null || schema.getSchemaInfo() == null
+                ? null : PrimitiveValueDecoder.forSchema(schema.getSchemaInfo().getType(), columnHandle.getType());
+    }
+
+    /**
+     * Whether the payload is the value of the column as is: the bytes of a BYTES topic, or the
+     * UTF-8 text of a STRING topic.
+     */
+    private static boolean isRawPayload(SchemaInfo schemaInfo, Type type)
+    {
+        if (schemaInfo == null) {
+            return false;
+        }
+        if (schemaInfo.getType() == SchemaType.BYTES) {
+            return type instanceof VarbinaryType;
+        }
+        if (schemaInfo.getType() == SchemaType.STRING && type instanceof VarcharType) {
+            String charset = schemaInfo.getProperties() == null ? null : schemaInfo.getProperties().get(CHARSET_PROPERTY);
+            return charset == null || Charset.forName(charset).equals(UTF_8);
+        }
+        return false;
+    }
+
+    @Override
+    public List<DecoderColumnHandle> getColumns()
+    {
+        return columns;
     }
 
     @Override
@@ -65,46 +104,100 @@ public class PulsarPrimitiveRowDecoder
             return Optional.empty();
         }
 
-        Object value = schema.decode(byteBuf);
-        Map<DecoderColumnHandle, FieldValueProvider> primitiveColumn = new HashMap<>();
+        PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+        decodeColumn(decodeRecord(byteBuf), 0, value);
+        return Optional.of(Map.of(columnHandle, value));
+    }
+
+    @Override
+    public Object decodeRecord(ByteBuf byteBuf)
+    {
+        if (columnHandle == null) {
+            return null;
+        }
+        if (rawPayload) {
+            // the payload is copied once, straight into the slice of the cell. The slice cannot wrap the
+            // entry memory: records outlive the message, which is released once the cursor moves on
+            byte[] bytes = new byte[byteBuf.readableBytes()];
+            byteBuf.getBytes(byteBuf.readerIndex(), bytes);
+            return wrappedBuffer(bytes);
+        }
+        if (valueDecoder != null) {
+            if (valueDecoder.accepts(byteBuf)) {
+                return new PrimitiveRecord(valueDecoder.readBits(byteBuf));
+            }
+            // not a single value, the schema validates the size of the payload and rejects it
+            schema.decode(byteBuf);
+            return null;
+        }
+        return schema.decode(byteBuf);
+    }
+
+    @Override
+    public void decodeColumn(Object value, int column, PulsarFieldValueHolder holder)
+    {
         if (value == null) {
-            primitiveColumn.put(columnHandle, FieldValueProviders.nullValueProvider());
+            holder.setNull();
+            return;
+        }
+        // the kind of the record is fixed by the schema and the column
+        if (rawPayload) {
+            holder.setSlice((Slice) value);
+            return;
+        }
+        if (valueDecoder != null) {
+            valueDecoder.setBits(((PrimitiveRecord) value).bits, holder);
+            return;
+        }
+        Type type = columnHandle.getType();
+        if (type instanceof BooleanType) {
+            holder.setBoolean((Boolean) value);
+        }
+        else if (type instanceof TinyintType || type instanceof SmallintType || type instanceof IntegerType
+                || type instanceof BigintType) {
+            holder.setLong(((Number) value).longValue());
+        }
+        else if (type instanceof DoubleType) {
+            holder.setDouble(((Number) value).doubleValue());
+        }
+        else if (type instanceof RealType) {
+            holder.setLong(Float.floatToIntBits(((Number) value).floatValue()));
+        }
+        else if (type instanceof VarbinaryType) {
+            holder.setSlice(wrappedBuffer((byte[]) value));
+        }
+        else if (type instanceof VarcharType) {
+            holder.setSlice(utf8Slice(value.toString()));
+        }
+        else if (type instanceof DateType) {
+            holder.setLong(((Date) value).getTime());
+        }
+        else if (type instanceof TimeType) {
+            holder.setLong(((Time) value).getTime());
+        }
+        else if (type instanceof TimestampType) {
+            holder.setLong(((Timestamp) value).getTime());
         }
         else {
-            Type type = columnHandle.getType();
-            if (type instanceof BooleanType) {
-                primitiveColumn.put(columnHandle, booleanValueProvider(Boolean.valueOf((Boolean) value)));
-            }
-            else if (type instanceof TinyintType || type instanceof SmallintType || type instanceof IntegerType
-                    || type instanceof BigintType) {
-                primitiveColumn.put(columnHandle, longValueProvider(Long.valueOf(value.toString())));
-            }
-            else if (type instanceof DoubleType) {
-                primitiveColumn.put(columnHandle, doubleValueProvider(Double.valueOf(value.toString())));
-            }
-            else if (type instanceof RealType) {
-                primitiveColumn.put(columnHandle, longValueProvider(
-                        Float.floatToIntBits((Float.valueOf(value.toString())))));
-            }
-            else if (type instanceof VarbinaryType) {
-                primitiveColumn.put(columnHandle, bytesValueProvider((byte[]) value));
-            }
-            else if (type instanceof VarcharType) {
-                primitiveColumn.put(columnHandle, bytesValueProvider(value.toString().getBytes(StandardCharsets.UTF_8)));
-            }
-            else if (type instanceof DateType) {
-                primitiveColumn.put(columnHandle, longValueProvider(((Date) value).getTime()));
-            }
-            else if (type instanceof TimeType) {
-                primitiveColumn.put(columnHandle, longValueProvider(((Time) value).getTime()));
-            }
-            else if (type instanceof TimestampType) {
-                primitiveColumn.put(columnHandle, longValueProvider(((Timestamp) value).getTime()));
-            }
-            else {
-                primitiveColumn.put(columnHandle, bytesValueProvider(value.toString().getBytes(StandardCharsets.UTF_8)));
-            }
+            holder.setSlice(utf8Slice(value.toString()));
+        }
+    }
+
+    /**
+     * Record of a fixed width value, held unboxed as the bits read by {@link PrimitiveValueDecoder#readBits(ByteBuf)}.
+     */
+    static final class PrimitiveRecord
+    {
+        private final long bits;
+
+        PrimitiveRecord(long bits)
+        {
+            this.bits = bits;
+        }
+
+        long getBits()
+        {
+            return bits;
         }
-        return Optional.of(primitiveColumn);
     }
 }
@@ -14,11 +14,13 @@
 package io.trino.plugin.pulsar.decoder.protobufnative;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
 import io.trino.spi.TrinoException;
 import io.trino.spi.block.Block;
 import io.trino.spi.block.BlockBuilder;
@@ -37,6 +39,7 @@ import io.trino.spi.type.Type;
 import io.trino.spi.type.VarbinaryType;
 import io.trino.spi.type.VarcharType;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.EnumValue;
 
@@ -70,9 +73,34 @@ public class PulsarProtobufNativeColumnDecoder
 
     private final Type columnType;
     private final String columnMapping;
+    private final List<String> columnPath;
     private final String columnName;
+    // the fields of columnPath, resolved once against the descriptor of the schema; null if not resolved
+    private final Descriptors.FieldDescriptor[] fieldPath;
+    // readers of the value of the field of the column in a message, and read from the payload into a projected
+    // record; null if the value is read through a provider
+    private final ValueReader messageValueReader;
+    private final ValueReader payloadValueReader;
+
+    /**
+     * Sets the located value of the column into a holder. It is chosen once from the field and the column type,
+     * which fix the class of the value, so the value is cast without being checked.
+     */
+    private interface ValueReader
+    {
+        void read(Object value, PulsarFieldValueHolder holder);
+    }
 
     public PulsarProtobufNativeColumnDecoder(DecoderColumnHandle columnHandle)
+    {
+        this(columnHandle, null);
+    }
+
+    /**
+     * Create a decoder of the column of messages of {@code descriptor}, which resolves the fields of the
+     * column mapping once instead of looking them up by name in every message.
+     */
+    public PulsarProtobufNativeColumnDecoder(DecoderColumnHandle columnHandle, Descriptors.Descriptor descriptor)
     {
         try {
             requireNonNull(columnHandle, "columnHandle is null");
@@ -84,10 +112,96 @@ public class PulsarProtobufNativeColumnDecoder
             checkArgument(columnHandle.getDataFormat() == null, "unexpected data format '%s' defined for column '%s'", columnHandle.getDataFormat(), columnName);
             checkArgument(columnHandle.getMapping() != null, "mapping not defined for column '%s'", columnName);
             checkArgument(isSupportedType(columnType), "Unsupported column type '%s' for column '%s'", columnType, columnName);
+            columnPath = ImmutableList.copyOf(Splitter.on('/').omitEmptyStrings().split(columnMapping));
         }
         catch (IllegalArgumentException e) {
             throw new TrinoException(GENERIC_USER_ERROR, e);
         }
+        fieldPath = descriptor == null ? null : resolveFieldPath(descriptor, columnPath);
+        messageValueReader = fieldPath == null ? null : valueReader(fieldPath[fieldPath.length - 1], columnType, false);
+        payloadValueReader = getScalarField() == null ? null : valueReader(getScalarField(), columnType, true);
+    }
+
+    private static Descriptors.FieldDescriptor[] resolveFieldPath(Descriptors.Descriptor descriptor, List<String> columnPath)
+    {
+        Descriptors.FieldDescriptor[] fields = new Descriptors.FieldDescriptor[columnPath.size()];
+        for (int i = 0; i < fields.length; i++) {
+            if (descriptor == null) {
+                return null;
+            }
+            fields[i] = descriptor.findFieldByName(columnPath.get(i));
+            if (fields[i] == null) {
+                return null;
+            }
+            descriptor = fields[i].getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE && !fields[i].isRepeated()
+                    ? fields[i].getMessageType() : null;
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the reader of the values of {@code field} into a column of {@code type}, or null if they are read
+     * through a provider. A string read from the payload is the slice of its UTF-8 bytes and bytes are a byte array,
+     * in a message they are a String and a ByteString.
+     */
+    private static ValueReader valueReader(Descriptors.FieldDescriptor field, Type type, boolean payloadValue)
+    {
+        if (field.isRepeated()) {
+            return null;
+        }
+        boolean integral = type instanceof BigintType || type instanceof IntegerType;
+        switch (field.getJavaType()) {
+            case INT:
+                if (integral) {
+                    return (value, holder) -> holder.setLong((Integer) value);
+                }
+                break;
+            case LONG:
+                if (integral) {
+                    return (value, holder) -> holder.setLong((Long) value);
+                }
+                break;
+            case FLOAT:
+                if (type instanceof RealType) {
+                    return (value, holder) -> holder.setLong(floatToIntBits((Float) value));
+                }
+                if (type instanceof DoubleType) {
+                    return (value, holder) -> holder.setDouble((Float) value);
+                }
+                break;
+            case DOUBLE:
+                if (type instanceof DoubleType) {
+                    return (value, holder) -> holder.setDouble((Double) value);
+                }
+                break;
+            case BOOLEAN:
+                if (type instanceof BooleanType) {
+                    return (value, holder) -> holder.setBoolean((Boolean) value);
+                }
+                break;
+            case STRING:
+                if (type instanceof VarcharType) {
+                    return payloadValue
+                            ? (value, holder) -> holder.setSlice(truncateToLength((Slice) value, type))
+                            : (value, holder) -> holder.setSlice(truncateToLength(utf8Slice((String) value), type));
+                }
+                break;
+            case BYTE_STRING:
+                if (type.getJavaType() == Slice.class) {
+                    return payloadValue
+                            ? (value, holder) -> holder.setSlice(Slices.wrappedBuffer((byte[]) value))
+                            : (value, holder) -> holder.setSlice(Slices.wrappedBuffer(((ByteString) value).toByteArray()));
+                }
+                break;
+            case ENUM:
+                if (type instanceof VarcharType) {
+                    return (value, holder) -> holder.setSlice(truncateToLength(utf8Slice(value.toString()), type));
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
     }
 
     private static boolean isSupportedType(Type type)
@@ -123,16 +237,85 @@ public class PulsarProtobufNativeColumnDecoder
         return type instanceof VarcharType || SUPPORTED_PRIMITIVE_TYPES.contains(type);
     }
 
+    /**
+     * Returns the top level field read by the column, or null if the mapping is not resolved against a descriptor.
+     */
+    Descriptors.FieldDescriptor getRootField()
+    {
+        return fieldPath == null || fieldPath.length == 0 ? null : fieldPath[0];
+    }
+
+    /**
+     * Returns the top level field read by the column if it is a scalar, whose value can be read from the payload
+     * without a message, or null otherwise.
+     */
+    Descriptors.FieldDescriptor getScalarField()
+    {
+        if (fieldPath == null || fieldPath.length != 1 || fieldPath[0].isRepeated()
+                || fieldPath[0].getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+            return null;
+        }
+        return fieldPath[0];
+    }
+
     public FieldValueProvider decodeField(DynamicMessage dynamicMessage)
     {
-        Object columnValue = locateNode(dynamicMessage, columnMapping);
+        Object columnValue = locateNode(dynamicMessage, columnPath);
         return new ObjectValueProvider(columnValue, columnType, columnName);
     }
 
-    private static Object locateNode(DynamicMessage element, String columnMapping)
+    /**
+     * Decode the column into {@code holder}. Primitive values are set directly, only structural values
+     * are held through a provider.
+     */
+    public void decodeField(DynamicMessage dynamicMessage, PulsarFieldValueHolder holder)
+    {
+        if (fieldPath == null) {
+            decodeValue(locateNode(dynamicMessage, columnPath), null, holder);
+            return;
+        }
+        Object value = dynamicMessage;
+        for (Descriptors.FieldDescriptor field : fieldPath) {
+            if (value == null) {
+                holder.setNull();
+                return;
+            }
+            DynamicMessage message = (DynamicMessage) value;
+            if (message.getDescriptorForType() != field.getContainingType()) {
+                // a message of another descriptor, resolved by name and read through a provider
+                decodeValue(locateNode(dynamicMessage, columnPath), null, holder);
+                return;
+            }
+            value = message.getField(field);
+        }
+        decodeValue(value, messageValueReader, holder);
+    }
+
+    /**
+     * Decode the value of the scalar field of the column, as read from the payload, into {@code holder}.
+     */
+    void decodePayloadValue(Object value, PulsarFieldValueHolder holder)
+    {
+        decodeValue(value, payloadValueReader, holder);
+    }
+
+    private void decodeValue(Object value, ValueReader valueReader, PulsarFieldValueHolder holder)
+    {
+        if (value == null) {
+            holder.setNull();
+        }
+        else if (valueReader == null) {
+            holder.setProvider(new ObjectValueProvider(value, columnType, columnName));
+        }
+        else {
+            valueReader.read(value, holder);
+        }
+    }
+
+    private static Object locateNode(DynamicMessage element, List<String> columnPath)
     {
         Object value = element;
-        for (String pathElement : Splitter.on('/').omitEmptyStrings().split(columnMapping)) {
+        for (String pathElement : columnPath) {
             if (value == null) {
                 return null;
             }
@@ -219,6 +402,10 @@ public class PulsarProtobufNativeColumnDecoder
         }
 
         if (type instanceof VarcharType) {
+            if (value instanceof Slice) {
+                // the UTF-8 bytes of a string read from the payload
+                return truncateToLength((Slice) value, type);
+            }
             return truncateToLength(utf8Slice(value.toString()), type);
         }
 
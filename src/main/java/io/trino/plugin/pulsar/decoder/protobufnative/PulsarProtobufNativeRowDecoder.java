@@ -13,16 +13,28 @@
  */
 package io.trino.plugin.pulsar.decoder.protobufnative;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.WireFormat;
+import io.airlift.slice.Slices;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
 import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.spi.TrinoException;
-import org.apache.pulsar.client.api.SchemaSerializationException;
-import org.apache.pulsar.client.impl.schema.generic.GenericProtobufNativeRecord;
 import org.apache.pulsar.client.impl.schema.generic.GenericProtobufNativeSchema;
 import com.google.protobuf.DynamicMessage;
 import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -34,22 +46,106 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Pulsar {@link org.apache.pulsar.shade.org.apache.pulsar.common.schema.SchemaType#PROTOBUF_NATIVE} RowDecoder.
+ *
+ * <p>The fields of the column mappings are resolved once against the descriptor of the schema. When all of them
+ * resolve, a payload is parsed field by field and only the top level fields the columns read are kept; the others
+ * are skipped by their wire type without being decoded. A scalar field is read from the payload straight into the
+ * values of the record, a string as the slice of its UTF-8 bytes. Message, repeated and map fields are copied
+ * and a message is built from them alone, so no message is built if the columns only read scalar fields.
  */
 public class PulsarProtobufNativeRowDecoder
         implements PulsarRowDecoder
 {
+    private static final ThreadLocal<ProjectionBuffer> PROJECTION_BUFFERS = ThreadLocal.withInitial(ProjectionBuffer::new);
+
     private final GenericProtobufNativeSchema genericProtobufNativeSchema;
+    private final Descriptors.Descriptor descriptor;
+    // the numbers of the top level fields read by the columns; null if all fields are parsed
+    private final BitSet projectedFields;
+    // the numbers of the projected top level fields built into a message, the other ones are scalars
+    private final BitSet messageFields;
+    // by top level field number, the slot of the value of a projected scalar field in the record; -1 otherwise
+    private final int[] scalarSlots;
+    private final Descriptors.FieldDescriptor[] scalarFields;
+    // by slot, the value of a scalar field missing from the payload, as read from the payload
+    private final Object[] scalarDefaults;
+    // by column, the slot of the scalar field it reads; -1 if it reads a message field
+    private final int[] columnSlots;
     private final Map<DecoderColumnHandle, PulsarProtobufNativeColumnDecoder> columnDecoders;
+    private final List<DecoderColumnHandle> columns;
+    private final PulsarProtobufNativeColumnDecoder[] orderedColumnDecoders;
 
     public PulsarProtobufNativeRowDecoder(GenericProtobufNativeSchema genericProtobufNativeSchema, Set<DecoderColumnHandle> columns)
     {
         this.genericProtobufNativeSchema = requireNonNull(genericProtobufNativeSchema, "genericProtobufNativeSchema is null");
+        this.descriptor = genericProtobufNativeSchema.getProtobufNativeSchema();
         columnDecoders = columns.stream().collect(toImmutableMap(identity(), this::createColumnDecoder));
+        this.columns = ImmutableList.copyOf(columnDecoders.keySet());
+        this.orderedColumnDecoders = this.columns.stream()
+                .map(columnDecoders::get)
+                .toArray(PulsarProtobufNativeColumnDecoder[]::new);
+        this.projectedFields = projectedFields(orderedColumnDecoders);
+
+        this.messageFields = new BitSet();
+        this.scalarSlots = new int[projectedFields == null ? 0 : projectedFields.length()];
+        Arrays.fill(scalarSlots, -1);
+        this.columnSlots = new int[orderedColumnDecoders.length];
+        List<Descriptors.FieldDescriptor> scalarFields = new ArrayList<>();
+        for (int i = 0; i < orderedColumnDecoders.length; i++) {
+            columnSlots[i] = -1;
+            if (projectedFields == null) {
+                continue;
+            }
+            Descriptors.FieldDescriptor field = orderedColumnDecoders[i].getScalarField();
+            if (field == null) {
+                messageFields.set(orderedColumnDecoders[i].getRootField().getNumber());
+                continue;
+            }
+            if (scalarSlots[field.getNumber()] == -1) {
+                scalarSlots[field.getNumber()] = scalarFields.size();
+                scalarFields.add(field);
+            }
+            columnSlots[i] = scalarSlots[field.getNumber()];
+        }
+        this.scalarFields = scalarFields.toArray(new Descriptors.FieldDescriptor[0]);
+        this.scalarDefaults = scalarFields.stream().map(PulsarProtobufNativeRowDecoder::defaultScalar).toArray();
+    }
+
+    private static Object defaultScalar(Descriptors.FieldDescriptor field)
+    {
+        switch (field.getType()) {
+            case STRING:
+                return Slices.utf8Slice((String) field.getDefaultValue());
+            case BYTES:
+                return ((ByteString) field.getDefaultValue()).toByteArray();
+            default:
+                return field.getDefaultValue();
+        }
+    }
+
+    private static BitSet projectedFields(PulsarProtobufNativeColumnDecoder[] columnDecoders)
+    {
+        BitSet fields = new BitSet();
+        for (PulsarProtobufNativeColumnDecoder columnDecoder : columnDecoders) {
+            Descriptors.FieldDescriptor field = columnDecoder.getRootField();
+            if (field == null) {
+                // resolved by name in every message, which needs all of its fields
+                return null;
+            }
+            fields.set(field.getNumber());
+        }
+        return fields;
+    }
+
+    @Override
+    public List<DecoderColumnHandle> getColumns()
+    {
+        return columns;
     }
 
     private PulsarProtobufNativeColumnDecoder createColumnDecoder(DecoderColumnHandle columnHandle)
     {
-        return new PulsarProtobufNativeColumnDecoder(columnHandle);
+        return new PulsarProtobufNativeColumnDecoder(columnHandle, descriptor);
     }
 
     /**
@@ -61,15 +157,168 @@ public class PulsarProtobufNativeRowDecoder
     @Override
     public Optional<Map<DecoderColumnHandle, FieldValueProvider>> decodeRow(ByteBuf byteBuf)
     {
-        DynamicMessage dynamicMessage;
+        Object record = decodeRecord(byteBuf);
+        ImmutableMap.Builder<DecoderColumnHandle, FieldValueProvider> values = ImmutableMap.builder();
+        for (int i = 0; i < columns.size(); i++) {
+            PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+            decodeColumn(record, i, value);
+            values.put(columns.get(i), value);
+        }
+        return Optional.of(values.buildOrThrow());
+    }
+
+    @Override
+    public Object decodeRecord(ByteBuf byteBuf)
+    {
         try {
-            GenericProtobufNativeRecord record = (GenericProtobufNativeRecord) genericProtobufNativeSchema.decode(byteBuf);
-            dynamicMessage = record.getProtobufRecord();
+            CodedInputStream input = byteBuf.hasArray()
+                    ? CodedInputStream.newInstance(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes())
+                    : CodedInputStream.newInstance(byteBuf.nioBuffer());
+            if (projectedFields == null) {
+                return DynamicMessage.parseFrom(descriptor, input);
+            }
+            return decodeProjectedRecord(input, byteBuf.readableBytes());
         }
-        catch (SchemaSerializationException e) {
+        catch (IOException e) {
             throw new TrinoException(GENERIC_INTERNAL_ERROR, "Decoding protobuf record failed.", e);
         }
-        return Optional.of(columnDecoders.entrySet().stream()
-                .collect(toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().decodeField(dynamicMessage))));
+    }
+
+    @Override
+    public void decodeColumn(Object record, int column, PulsarFieldValueHolder value)
+    {
+        if (record instanceof ProjectedRecord) {
+            ProjectedRecord projectedRecord = (ProjectedRecord) record;
+            if (columnSlots[column] >= 0) {
+                orderedColumnDecoders[column].decodePayloadValue(projectedRecord.scalars[columnSlots[column]], value);
+            }
+            else {
+                orderedColumnDecoders[column].decodeField(projectedRecord.message, value);
+            }
+            return;
+        }
+        orderedColumnDecoders[column].decodeField((DynamicMessage) record, value);
+    }
+
+    /**
+     * Read the projected top level fields of the message read by {@code input}, and skip the others. The scalar
+     * fields are read into the values of the record, as a message holds them. The message fields are copied into
+     * a thread local buffer, not larger than the payload of {@code length} bytes, and parsed into the message of
+     * the record.
+     */
+    private ProjectedRecord decodeProjectedRecord(CodedInputStream input, int length)
+            throws IOException
+    {
+        Object[] scalars = scalarDefaults.clone();
+        byte[] projected = null;
+        CodedOutputStream output = null;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            int number = WireFormat.getTagFieldNumber(tag);
+            int slot = number < scalarSlots.length ? scalarSlots[number] : -1;
+            if (slot >= 0 && WireFormat.getTagWireType(tag) == scalarFields[slot].getLiteType().getWireType()) {
+                scalars[slot] = readScalar(input, scalarFields[slot], scalars[slot]);
+            }
+            else if (messageFields.get(number)) {
+                if (output == null) {
+                    projected = PROJECTION_BUFFERS.get().payload(length);
+                    output = CodedOutputStream.newInstance(projected);
+                }
+                input.skipField(tag, output);
+            }
+            else {
+                // a scalar of another wire type is an unknown field of the message
+                input.skipField(tag);
+            }
+        }
+        if (messageFields.isEmpty()) {
+            return new ProjectedRecord(scalars, null);
+        }
+        if (output == null) {
+            return new ProjectedRecord(scalars, DynamicMessage.getDefaultInstance(descriptor));
+        }
+        output.flush();
+        // parsed without aliasing, the message does not reference the buffer once built
+        return new ProjectedRecord(scalars, DynamicMessage.parseFrom(descriptor, CodedInputStream.newInstance(projected, 0, output.getTotalBytesWritten())));
+    }
+
+    /**
+     * Read the value of the scalar {@code field} as {@link DynamicMessage#getField} returns it, except for a string
+     * which is read as the slice of its UTF-8 bytes. An enum number without a value keeps {@code previous}.
+     */
+    private static Object readScalar(CodedInputStream input, Descriptors.FieldDescriptor field, Object previous)
+            throws IOException
+    {
+        switch (field.getType()) {
+            case DOUBLE:
+                return input.readDouble();
+            case FLOAT:
+                return input.readFloat();
+            case INT64:
+                return input.readInt64();
+            case UINT64:
+                return input.readUInt64();
+            case INT32:
+                return input.readInt32();
+            case FIXED64:
+                return input.readFixed64();
+            case FIXED32:
+                return input.readFixed32();
+            case BOOL:
+                return input.readBool();
+            case STRING:
+                return Slices.wrappedBuffer(input.readByteArray());
+            case BYTES:
+                return input.readByteArray();
+            case UINT32:
+                return input.readUInt32();
+            case SFIXED32:
+                return input.readSFixed32();
+            case SFIXED64:
+                return input.readSFixed64();
+            case SINT32:
+                return input.readSInt32();
+            case SINT64:
+                return input.readSInt64();
+            case ENUM:
+                Descriptors.EnumValueDescriptor value = field.getEnumType().findValueByNumber(input.readEnum());
+                return value == null ? previous : value;
+            default:
+                throw new IllegalArgumentException("not a scalar field: " + field.getFullName());
+        }
+    }
+
+    /**
+     * The projected fields of a payload: the values of the scalar fields by slot, and the message of the other
+     * fields, null if the columns only read scalar fields.
+     */
+    static class ProjectedRecord
+    {
+        private final Object[] scalars;
+        private final DynamicMessage message;
+
+        ProjectedRecord(Object[] scalars, DynamicMessage message)
+        {
+            this.scalars = scalars;
+            this.message = message;
+        }
+
+        DynamicMessage getMessage()
+        {
+            return message;
+        }
+    }
+
+    private static class ProjectionBuffer
+    {
+        private byte[] payload = new byte[0];
+
+        byte[] payload(int length)
+        {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            return payload;
+        }
     }
 }
@@ -25,6 +25,13 @@ public interface CacheSizeAllocator
      */
     public long getAvailableCacheSize();
 
+    /**
+     * Get allocated cache size, what is held by the queue of this allocator.
+     *
+     * @return allocated cache size
+     */
+    public long getAllocatedCacheSize();
+
     /**
      * Consume available cache.
      *
@@ -13,8 +13,7 @@
  */
 package io.trino.plugin.pulsar.util;
 
-import java.util.concurrent.atomic.LongAdder;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link CacheSizeAllocator} that will ease cache limit under certain circumstance.
@@ -23,24 +22,24 @@ public class NoStrictCacheSizeAllocator
         implements CacheSizeAllocator
 {
     private final long maxCacheSize;
-    private final LongAdder availableCacheSize;
-    private final ReentrantLock lock;
+    private final AtomicLong availableCacheSize;
 
     public NoStrictCacheSizeAllocator(long maxCacheSize)
     {
         this.maxCacheSize = maxCacheSize;
-        this.availableCacheSize = new LongAdder();
-        this.availableCacheSize.add(maxCacheSize);
-        this.lock = new ReentrantLock();
+        this.availableCacheSize = new AtomicLong(maxCacheSize);
     }
 
     @Override
     public long getAvailableCacheSize()
     {
-        if (availableCacheSize.longValue() < 0) {
-            return 0;
-        }
-        return availableCacheSize.longValue();
+        return Math.max(availableCacheSize.get(), 0);
+    }
+
+    @Override
+    public long getAllocatedCacheSize()
+    {
+        return maxCacheSize - availableCacheSize.get();
     }
 
     /**
@@ -53,13 +52,7 @@ public class NoStrictCacheSizeAllocator
     @Override
     public void allocate(long size)
     {
-        try {
-            lock.lock();
-            availableCacheSize.add(-size);
-        }
-        finally {
-            lock.unlock();
-        }
+        availableCacheSize.addAndGet(-size);
     }
 
     /**
@@ -70,16 +63,6 @@ public class NoStrictCacheSizeAllocator
     @Override
     public void release(long size)
     {
-        try {
-            lock.lock();
-            availableCacheSize.add(size);
-            if (availableCacheSize.longValue() > maxCacheSize) {
-                availableCacheSize.reset();
-                availableCacheSize.add(maxCacheSize);
-            }
-        }
-        finally {
-            lock.unlock();
-        }
+        availableCacheSize.updateAndGet(available -> Math.min(available + size, maxCacheSize));
     }
 }
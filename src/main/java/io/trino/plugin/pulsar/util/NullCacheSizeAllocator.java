@@ -13,24 +13,37 @@
  */
 package io.trino.plugin.pulsar.util;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CacheSizeAllocator} without limit, which only keeps track of the allocated cache size.
+ */
 public class NullCacheSizeAllocator
         implements CacheSizeAllocator
 {
+    private final AtomicLong allocatedCacheSize = new AtomicLong();
+
     @Override
     public long getAvailableCacheSize()
     {
         return -1;
     }
 
+    @Override
+    public long getAllocatedCacheSize()
+    {
+        return Math.max(allocatedCacheSize.get(), 0);
+    }
+
     @Override
     public void allocate(long size)
     {
-        // no op
+        allocatedCacheSize.addAndGet(size);
     }
 
     @Override
     public void release(long size)
     {
-        // no op
+        allocatedCacheSize.addAndGet(-size);
     }
 }
@@ -14,10 +14,8 @@
 package io.trino.plugin.pulsar.util;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.pulsar.shade.com.fasterxml.jackson.databind.JsonNode;
 import org.apache.pulsar.shade.io.netty.util.concurrent.FastThreadLocal;
 
 public class ObjectMapperFactory
@@ -35,11 +33,6 @@ public class ObjectMapperFactory
         return mapper;
     }
 
-    public static com.fasterxml.jackson.databind.JsonNode toOriginalJsonNode(JsonNode jsonNode) throws JsonProcessingException
-    {
-        return ObjectMapperFactory.getThreadLocal().readTree(jsonNode.toString());
-    }
-
     private static final FastThreadLocal<ObjectMapper> JSON_MAPPER = new FastThreadLocal<ObjectMapper>()
     {
         @Override
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cache size shared by the entry and message queues of all splits of a worker.
+ *
+ * <p>Every queue reading on the worker holds a {@link QueueAllocator}. The cache size is shared fairly: a queue has
+ * cache available while it holds less than its share, the cache size divided by the open queues, and while the
+ * worker as a whole holds less than the cache size. As with {@link NoStrictCacheSizeAllocator} an allocation is
+ * never refused, so that an entry larger than a share is still read; queues check the available size before
+ * reading more and back off until it is released.
+ */
+public class WorkerCacheSizeAllocator
+{
+    private final long maxCacheSize;
+    private final AtomicLong allocatedCacheSize = new AtomicLong();
+    private final AtomicInteger openQueues = new AtomicInteger();
+
+    public WorkerCacheSizeAllocator(long maxCacheSize)
+    {
+        checkArgument(maxCacheSize >= 0, "maxCacheSize is negative");
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    public long getMaxCacheSize()
+    {
+        return maxCacheSize;
+    }
+
+    public long getAllocatedCacheSize()
+    {
+        return allocatedCacheSize.get();
+    }
+
+    public int getOpenQueues()
+    {
+        return openQueues.get();
+    }
+
+    /**
+     * Open the allocator of a queue, which never gets more than {@code maxQueueCacheSize} if it is not negative.
+     * The allocator must be closed once the queue is discarded, what it still holds is released then.
+     */
+    public QueueAllocator openQueue(long maxQueueCacheSize)
+    {
+        openQueues.incrementAndGet();
+        return new QueueAllocator(maxQueueCacheSize);
+    }
+
+    public class QueueAllocator
+            implements CacheSizeAllocator, AutoCloseable
+    {
+        private final long maxQueueCacheSize;
+        private final AtomicLong allocated = new AtomicLong();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private QueueAllocator(long maxQueueCacheSize)
+        {
+            this.maxQueueCacheSize = maxQueueCacheSize;
+        }
+
+        @Override
+        public long getAvailableCacheSize()
+        {
+            long share = maxCacheSize / Math.max(1, openQueues.get());
+            if (maxQueueCacheSize >= 0) {
+                share = Math.min(share, maxQueueCacheSize);
+            }
+            long available = Math.min(share - allocated.get(), maxCacheSize - allocatedCacheSize.get());
+            return Math.max(available, 0);
+        }
+
+        @Override
+        public long getAllocatedCacheSize()
+        {
+            return allocated.get();
+        }
+
+        @Override
+        public void allocate(long size)
+        {
+            allocatedCacheSize.addAndGet(size);
+            allocated.addAndGet(size);
+            if (closed.get()) {
+                // raced with close, which may not have seen this allocation
+                releaseAll();
+            }
+        }
+
+        /**
+         * Release {@code size}, at most what the queue holds: releases past it are ignored, as with
+         * {@link NoStrictCacheSizeAllocator}.
+         */
+        @Override
+        public void release(long size)
+        {
+            long current;
+            long released;
+            do {
+                current = allocated.get();
+                released = Math.min(size, current);
+            }
+            while (released > 0 && !allocated.compareAndSet(current, current - released));
+            if (released > 0) {
+                allocatedCacheSize.addAndGet(-released);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed.compareAndSet(false, true)) {
+                openQueues.decrementAndGet();
+                releaseAll();
+            }
+        }
+
+        private void releaseAll()
+        {
+            allocatedCacheSize.addAndGet(-allocated.getAndSet(0));
+        }
+    }
+}
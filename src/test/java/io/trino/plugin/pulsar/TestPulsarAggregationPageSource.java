@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.connector.ColumnHandle;
+import org.apache.bookkeeper.mledger.ManagedLedgerConfig;
+import org.apache.bookkeeper.mledger.ManagedLedgerFactory;
+import org.apache.pulsar.common.naming.TopicName;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.TimestampType.TIMESTAMP_MILLIS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarAggregationPageSource
+{
+    private static final List<ColumnHandle> AGGREGATES = ImmutableList.of(
+            new PulsarAggregateColumnHandle("count", PulsarAggregateColumnHandle.Function.COUNT, BIGINT),
+            new PulsarAggregateColumnHandle("min", PulsarAggregateColumnHandle.Function.MIN_PUBLISH_TIME, TIMESTAMP_MILLIS),
+            new PulsarAggregateColumnHandle("max", PulsarAggregateColumnHandle.Function.MAX_PUBLISH_TIME, TIMESTAMP_MILLIS));
+
+    @Test
+    public void testCountFromBrokerIndex()
+            throws Exception
+    {
+        TestingManagedLedger ledger = ledger(new TestingManagedLedger().withBrokerIndex());
+        ManagedLedgerFactory managedLedgerFactory = ledger.managedLedgerFactory();
+        PulsarAggregationSplit split = new PulsarAggregationSplit(
+                ImmutableList.of(ledger.split(0, 3), ledger.split(3, ledger.getEntryCount())), false);
+        PulsarAggregationPageSource pageSource = new PulsarAggregationPageSource(AGGREGATES, split,
+                rangeSplit -> new PulsarLedgerBounds(managedLedgerFactory, new ManagedLedgerConfig()),
+                rangeSplit -> {
+                    throw new AssertionError("no range is scanned");
+                });
+
+        // the count comes from the indexes of the first and last entries, the bounds from their publish times
+        List<Page> pages = ledger.readPages(pageSource);
+        assertEquals(pages.size(), 1);
+        assertRow(pages.get(0), 0, 9, 1_000_000, 1_005_000);
+        verify(managedLedgerFactory, times(1)).openReadOnlyCursor(anyString(), any(), any());
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testCountFromHeaderScan()
+            throws Exception
+    {
+        TestingManagedLedger ledger = ledger(new TestingManagedLedger());
+        PulsarAggregationSplit split = new PulsarAggregationSplit(
+                ImmutableList.of(ledger.split(0, 3), ledger.split(3, ledger.getEntryCount())), false);
+        PulsarAggregationPageSource pageSource = new PulsarAggregationPageSource(AGGREGATES, split,
+                rangeSplit -> new PulsarLedgerBounds(ledger.managedLedgerFactory(), new ManagedLedgerConfig()),
+                rangeSplit -> ledger.cursor(ImmutableList.of(), rangeSplit, TestingManagedLedger.config()));
+
+        // without a broker index, the messages are counted from the entry headers of the ranges
+        List<Page> pages = ledger.readPages(pageSource);
+        assertEquals(pages.size(), 1);
+        assertRow(pages.get(0), 0, 9, 1_000_000, 1_005_000);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testPublishTimeWithoutScan()
+            throws Exception
+    {
+        TestingManagedLedger ledger = ledger(new TestingManagedLedger());
+        PulsarAggregationSplit split = new PulsarAggregationSplit(ImmutableList.of(ledger.split(0, ledger.getEntryCount())), false);
+        PulsarAggregationPageSource pageSource = new PulsarAggregationPageSource(AGGREGATES.subList(1, 3), split,
+                rangeSplit -> new PulsarLedgerBounds(ledger.managedLedgerFactory(), new ManagedLedgerConfig()),
+                rangeSplit -> {
+                    throw new AssertionError("no range is scanned");
+                });
+
+        // without count, the bounds do not need the broker index
+        List<Page> pages = ledger.readPages(pageSource);
+        assertEquals(pages.size(), 1);
+        assertEquals(TIMESTAMP_MILLIS.getLong(pages.get(0).getBlock(0), 0), 1_000_000);
+        assertEquals(TIMESTAMP_MILLIS.getLong(pages.get(0).getBlock(1), 0), 1_005_000);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testGroupedByPartition()
+            throws Exception
+    {
+        TestingManagedLedger ledger = new TestingManagedLedger();
+        List<String> reads = new ArrayList<>();
+        PulsarAggregationSplit split = new PulsarAggregationSplit(ImmutableList.of(
+                ledger.split("topic-partition-1", 0, 4),
+                ledger.split("topic-partition-0", 5, 8),
+                ledger.split("topic-partition-0", 0, 5),
+                ledger.split("topic-partition-2", 0, 0)), true);
+        List<ColumnHandle> columns = ImmutableList.<ColumnHandle>builder()
+                .add(PulsarInternalColumn.PARTITION.getColumnHandle("pulsar", false))
+                .addAll(AGGREGATES)
+                .build();
+        PulsarAggregationPageSource pageSource = new PulsarAggregationPageSource(columns, split,
+                rangeSplit -> (partitionSplit, start, entries) -> {
+                    reads.add(partitionSplit.getTableName() + "@" + start.getEntryId() + "+" + entries);
+                    int partition = TopicName.getPartitionIndex(partitionSplit.getTableName());
+                    return new PulsarAggregationPageSource.Bounds(100 * partition, 100 * partition + 10,
+                            OptionalLong.of(entries * 2));
+                },
+                rangeSplit -> {
+                    throw new AssertionError("no range is scanned");
+                });
+
+        // the bounds of every partition are read over all its ranges, a partition without entries has no row
+        List<Page> pages = ledger.readPages(pageSource);
+        assertEquals(reads, ImmutableList.of("topic-partition-0@0+8", "topic-partition-1@0+4"));
+        assertEquals(pages.size(), 1);
+        Page page = pages.get(0);
+        assertEquals(page.getPositionCount(), 2);
+        for (int position = 0; position < 2; position++) {
+            assertEquals(INTEGER.getInt(page.getBlock(0), position), position);
+        }
+        assertRow(page.getColumns(1, 2, 3), 0, 16, 0, 10_000);
+        assertRow(page.getColumns(1, 2, 3), 1, 8, 100_000, 110_000);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testEmptyTopic()
+    {
+        PulsarAggregationPageSource pageSource = new PulsarAggregationPageSource(AGGREGATES,
+                new PulsarAggregationSplit(ImmutableList.of(), false),
+                rangeSplit -> {
+                    throw new AssertionError("no entry is read");
+                },
+                rangeSplit -> {
+                    throw new AssertionError("no range is scanned");
+                });
+
+        // a global aggregation always returns its row
+        Page page = pageSource.getNextPage();
+        assertTrue(pageSource.isFinished());
+        assertEquals(page.getPositionCount(), 1);
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), 0);
+        assertTrue(page.getBlock(1).isNull(0));
+        assertTrue(page.getBlock(2).isNull(0));
+        pageSource.close();
+    }
+
+    /**
+     * Six entries holding nine messages, published from 1000 to 1005 ms.
+     */
+    private static TestingManagedLedger ledger(TestingManagedLedger ledger)
+    {
+        return ledger.addMessage(0, 1_000, null, 0, "first")
+                .addBatch(1, 1_001, Arrays.asList(null, null, null), ImmutableList.of(0L, 0L, 0L), ImmutableList.of("a", "b", "c"))
+                .addMessage(4, 1_002, "key", 0, "second")
+                .addBatch(5, 1_003, Arrays.asList(null, null), ImmutableList.of(0L, 0L), ImmutableList.of("d", "e"))
+                .addMessage(7, 1_004, null, 0, "third")
+                .addMessage(8, 1_005, null, 0, "last");
+    }
+
+    private static void assertRow(Page page, int position, long count, long minPublishTime, long maxPublishTime)
+    {
+        assertEquals(BIGINT.getLong(page.getBlock(0), position), count);
+        assertEquals(TIMESTAMP_MILLIS.getLong(page.getBlock(1), position), minPublishTime);
+        assertEquals(TIMESTAMP_MILLIS.getLong(page.getBlock(2), position), maxPublishTime);
+    }
+}
@@ -72,6 +72,19 @@ public class TestPulsarConnectorConfig
         assertEquals(availableProcessors, connectorConfig.getManagedLedgerNumWorkerThreads());
         assertEquals(availableProcessors, connectorConfig.getManagedLedgerNumSchedulerThreads());
         assertEquals(connectorConfig.getMaxSplitQueueSizeBytes(), -1);
+        assertEquals(connectorConfig.getMaxSplitChunkedMessageBufferSizeBytes(), 64 * 1024 * 1024);
+        assertEquals(connectorConfig.getMaxWorkerQueueSizeBytes(), -1);
+    }
+
+    @Test
+    public void testDefaultSplitPipelineConfig()
+    {
+        PulsarConnectorConfig connectorConfig = new PulsarConnectorConfig();
+        assertEquals(Runtime.getRuntime().availableProcessors(), connectorConfig.getDeserializerThreadCount());
+        assertEquals(1, connectorConfig.getSplitDeserializationParallelism());
+        assertEquals(1, connectorConfig.getReadAheadDepth());
+        assertTrue(connectorConfig.isAdaptiveReadEnabled());
+        assertEquals(1000, connectorConfig.getRowDecoderCacheSize());
     }
 
     @Test
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableSet;
+import io.trino.decoder.DecoderColumnHandle;
+import io.trino.spi.type.Type;
+import io.trino.testing.TestingConnectorContext;
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.common.naming.TopicName;
+import org.apache.pulsar.common.schema.SchemaInfo;
+import org.apache.pulsar.common.schema.SchemaType;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+
+import static io.trino.plugin.pulsar.decoder.primitive.PulsarPrimitiveRowDecoderFactory.PRIMITIVE_COLUMN_NAME;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class TestPulsarDispatchingRowDecoderFactory
+{
+    @Test
+    public void testTopicsSharingSchemaShareDecoder()
+    {
+        PulsarDispatchingRowDecoderFactory factory =
+                new PulsarDispatchingRowDecoderFactory(new TestingConnectorContext().getTypeManager());
+        Set<DecoderColumnHandle> columns = ImmutableSet.of(valueColumn(INTEGER));
+
+        SchemaInfo schema1 = int32Schema("topic-1");
+        SchemaInfo schema2 = int32Schema("topic-2");
+        PulsarRowDecoder decoder1 = factory.createRowDecoder(TopicName.get("topic-1"), schema1, columns);
+        PulsarRowDecoder decoder2 = factory.createRowDecoder(TopicName.get("topic-2"), schema2, columns);
+
+        assertSame(decoder1, decoder2);
+        assertEquals(factory.getCachedRowDecoderCount(), 1);
+    }
+
+    @Test
+    public void testDecoderPerSchemaAndColumns()
+    {
+        PulsarDispatchingRowDecoderFactory factory =
+                new PulsarDispatchingRowDecoderFactory(new TestingConnectorContext().getTypeManager());
+        TopicName topicName = TopicName.get("topic-1");
+
+        PulsarRowDecoder intDecoder = factory.createRowDecoder(topicName, Schema.INT32.getSchemaInfo(),
+                ImmutableSet.of(valueColumn(INTEGER)));
+        PulsarRowDecoder longDecoder = factory.createRowDecoder(topicName, Schema.INT64.getSchemaInfo(),
+                ImmutableSet.of(valueColumn(BIGINT)));
+        PulsarRowDecoder noColumnsDecoder = factory.createRowDecoder(topicName, Schema.INT32.getSchemaInfo(),
+                ImmutableSet.of());
+
+        assertNotSame(intDecoder, longDecoder);
+        assertNotSame(intDecoder, noColumnsDecoder);
+        assertEquals(factory.getCachedRowDecoderCount(), 3);
+    }
+
+    private static SchemaInfo int32Schema(String name)
+    {
+        return SchemaInfo.builder()
+                .name(name)
+                .type(SchemaType.INT32)
+                .schema(new byte[0])
+                .build();
+    }
+
+    private static PulsarColumnHandle valueColumn(Type type)
+    {
+        return new PulsarColumnHandle("test-connector", PRIMITIVE_COLUMN_NAME, type, false, false,
+                PRIMITIVE_COLUMN_NAME, null, null, PulsarColumnHandle.HandleKeyValueType.NONE);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import org.testng.annotations.Test;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.decoder.FieldValueProviders.longValueProvider;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarFieldValueHolder
+{
+    @Test
+    public void testReuse()
+    {
+        PulsarFieldValueHolder holder = new PulsarFieldValueHolder();
+        assertTrue(holder.isNull());
+
+        holder.setLong(42);
+        assertFalse(holder.isNull());
+        assertEquals(holder.getLong(), 42);
+
+        holder.setSlice(utf8Slice("value"));
+        assertEquals(holder.getSlice(), utf8Slice("value"));
+
+        holder.setSlice(null);
+        assertTrue(holder.isNull());
+
+        holder.setProvider(longValueProvider(7));
+        assertFalse(holder.isNull());
+        assertEquals(holder.getLong(), 7);
+
+        holder.setProvider(null);
+        assertTrue(holder.isNull());
+
+        holder.setDouble(1.5);
+        assertEquals(holder.getDouble(), 1.5);
+
+        holder.setBoolean(true);
+        assertTrue(holder.getBoolean());
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testTypeMismatch()
+    {
+        PulsarFieldValueHolder holder = new PulsarFieldValueHolder();
+        holder.setLong(1);
+        holder.getSlice();
+    }
+}
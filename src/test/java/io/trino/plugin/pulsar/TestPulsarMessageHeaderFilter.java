@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import org.apache.pulsar.common.api.proto.MessageMetadata;
+import org.testng.annotations.Test;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.type.TimestampType.TIMESTAMP_MILLIS;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarMessageHeaderFilter
+{
+    private static final PulsarColumnHandle PUBLISH_TIME = PulsarInternalColumn.PUBLISH_TIME.getColumnHandle("pulsar", false);
+    private static final PulsarColumnHandle PRODUCER_NAME = PulsarInternalColumn.PRODUCER_NAME.getColumnHandle("pulsar", false);
+    private static final PulsarColumnHandle MESSAGE_ID = PulsarInternalColumn.MESSAGE_ID.getColumnHandle("pulsar", false);
+
+    @Test
+    public void testEntryMetadata()
+    {
+        PulsarMessageHeaderFilter filter = PulsarMessageHeaderFilter.create(TupleDomain.withColumnDomains(ImmutableMap.of(
+                PUBLISH_TIME, Domain.create(ValueSet.ofRanges(Range.greaterThanOrEqual(TIMESTAMP_MILLIS, 2_000_000L)), false),
+                PRODUCER_NAME, Domain.singleValue(VARCHAR, utf8Slice("producer-1")))));
+        assertFalse(filter.isAll());
+
+        assertTrue(filter.matchesEntry(metadata(2000, "producer-1")));
+        assertFalse(filter.matchesEntry(metadata(1999, "producer-1")));
+        assertFalse(filter.matchesEntry(metadata(2000, "producer-2")));
+
+        // chunks are evaluated once the message is complete
+        assertTrue(filter.matchesEntry(metadata(1999, "producer-1").setNumChunksFromMsg(2)));
+    }
+
+    @Test
+    public void testNonHeaderColumns()
+    {
+        PulsarMessageHeaderFilter filter = PulsarMessageHeaderFilter.create(TupleDomain.withColumnDomains(ImmutableMap.of(
+                MESSAGE_ID, Domain.singleValue(VARCHAR, utf8Slice("1:1:-1")))));
+        assertTrue(filter.isAll());
+        assertTrue(PulsarMessageHeaderFilter.create(TupleDomain.all()).isAll());
+    }
+
+    @Test
+    public void testNone()
+    {
+        PulsarMessageHeaderFilter filter = PulsarMessageHeaderFilter.create(TupleDomain.none());
+        assertFalse(filter.matchesEntry(metadata(2000, "producer-1")));
+    }
+
+    private static MessageMetadata metadata(long publishTime, String producerName)
+    {
+        return new MessageMetadata()
+                .setPublishTime(publishTime)
+                .setProducerName(producerName)
+                .setSequenceId(1);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.trino.plugin.pulsar.decoder.primitive.PulsarPrimitiveRowDecoderFactory.PRIMITIVE_COLUMN_NAME;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.TimestampType.TIMESTAMP_MILLIS;
+import static io.trino.spi.type.VarbinaryType.VARBINARY;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarPageSource
+{
+    private static final int ENTRIES = 3;
+    private static final int MESSAGES_PER_ENTRY = 4000;
+
+    @Test
+    public void testEagerAndDecodedColumns()
+            throws Exception
+    {
+        TestingManagedLedger ledger = new TestingManagedLedger();
+        for (int entry = 0; entry < ENTRIES; entry++) {
+            List<String> keys = new ArrayList<>();
+            List<Long> eventTimes = new ArrayList<>();
+            List<String> payloads = new ArrayList<>();
+            for (int i = 0; i < MESSAGES_PER_ENTRY; i++) {
+                int row = entry * MESSAGES_PER_ENTRY + i;
+                // every other message has no key, every third message has no event time
+                keys.add(row % 2 == 0 ? "key-" + row : null);
+                eventTimes.add(row % 3 == 0 ? 0L : 1_000L + row);
+                payloads.add("message-" + row);
+            }
+            ledger.addBatch(entry * MESSAGES_PER_ENTRY, 1_600_000_000_000L + entry, keys, eventTimes, payloads);
+        }
+
+        List<PulsarColumnHandle> columns = ImmutableList.of(
+                PulsarInternalColumn.SEQUENCE_ID.getColumnHandle("pulsar", false),
+                new PulsarColumnHandle("pulsar", PRIMITIVE_COLUMN_NAME, VARBINARY, false, false,
+                        PRIMITIVE_COLUMN_NAME, null, null, PulsarColumnHandle.HandleKeyValueType.NONE),
+                PulsarInternalColumn.KEY.getColumnHandle("pulsar", false),
+                PulsarInternalColumn.EVENT_TIME.getColumnHandle("pulsar", false),
+                PulsarInternalColumn.PRODUCER_NAME.getColumnHandle("pulsar", false));
+        PulsarRecordCursor cursor = ledger.cursor(columns, ledger.split(0, ENTRIES), TestingManagedLedger.config());
+        PulsarPageSource pageSource = new PulsarPageSource(cursor, columns);
+
+        List<Page> pages = ledger.readPages(pageSource);
+
+        // the rows do not fit in a single page of decoded columns
+        assertTrue(pages.size() > 1);
+        int row = 0;
+        for (Page page : pages) {
+            assertTrue(page.getPositionCount() <= 8192);
+            assertEquals(page.getChannelCount(), columns.size());
+            Block sequenceIds = page.getBlock(0);
+            Block values = page.getBlock(1);
+            Block keys = page.getBlock(2);
+            Block eventTimes = page.getBlock(3);
+            Block producerNames = page.getBlock(4);
+            for (int position = 0; position < page.getPositionCount(); position++, row++) {
+                assertEquals(BIGINT.getLong(sequenceIds, position), row);
+                assertEquals(VARBINARY.getSlice(values, position).toStringUtf8(), "message-" + row);
+                if (row % 2 == 0) {
+                    assertEquals(VARCHAR.getSlice(keys, position).toStringUtf8(), "key-" + row);
+                }
+                else {
+                    assertTrue(keys.isNull(position));
+                }
+                assertEquals(eventTimes.isNull(position), row % 3 == 0);
+                assertFalse(producerNames.isNull(position));
+                assertEquals(VARCHAR.getSlice(producerNames, position).toStringUtf8(), TestingManagedLedger.PRODUCER_NAME);
+            }
+        }
+        assertEquals(row, ENTRIES * MESSAGES_PER_ENTRY);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testLazyPageRecordBytes()
+            throws Exception
+    {
+        int messages = 40;
+        String payload = "x".repeat(64 * 1024);
+        TestingManagedLedger ledger = new TestingManagedLedger();
+        List<String> keys = new ArrayList<>();
+        List<Long> eventTimes = new ArrayList<>();
+        List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            keys.add(null);
+            eventTimes.add(0L);
+            payloads.add(payload);
+        }
+        ledger.addBatch(0, 1_600_000_000_000L, keys, eventTimes, payloads);
+
+        List<PulsarColumnHandle> columns = ImmutableList.of(
+                new PulsarColumnHandle("pulsar", PRIMITIVE_COLUMN_NAME, VARBINARY, false, false,
+                        PRIMITIVE_COLUMN_NAME, null, null, PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarRecordCursor cursor = ledger.cursor(columns, ledger.split(0, 1), TestingManagedLedger.config());
+        PulsarPageSource pageSource = new PulsarPageSource(cursor, columns);
+
+        List<Page> pages = ledger.readPages(pageSource);
+
+        // a page keeps the records of at most a page worth of payloads, far fewer than its positions bound
+        assertTrue(pages.size() > 1);
+        int rows = 0;
+        for (Page page : pages) {
+            assertTrue(page.getPositionCount() <= 16);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(VARBINARY.getSlice(page.getBlock(0), position).length(), payload.length());
+            }
+            rows += page.getPositionCount();
+        }
+        assertEquals(rows, messages);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testTimestampColumns()
+            throws Exception
+    {
+        TestingManagedLedger ledger = new TestingManagedLedger()
+                .addMessage(0, 1_600_000_000_123L, null, 1_500_000_000_456L, "first")
+                .addMessage(1, 1_600_000_001_000L, null, 0, "second");
+
+        List<PulsarColumnHandle> columns = ImmutableList.of(
+                PulsarInternalColumn.PUBLISH_TIME.getColumnHandle("pulsar", false),
+                PulsarInternalColumn.EVENT_TIME.getColumnHandle("pulsar", false));
+        PulsarRecordCursor cursor = ledger.cursor(columns, ledger.split(0, 2), TestingManagedLedger.config());
+        PulsarPageSource pageSource = new PulsarPageSource(cursor, columns);
+
+        List<Long> publishTimes = new ArrayList<>();
+        List<Long> eventTimes = new ArrayList<>();
+        for (Page page : ledger.readPages(pageSource)) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                publishTimes.add(TIMESTAMP_MILLIS.getLong(page.getBlock(0), position));
+                eventTimes.add(page.getBlock(1).isNull(position) ? null : TIMESTAMP_MILLIS.getLong(page.getBlock(1), position));
+            }
+        }
+
+        // TIMESTAMP(3) values are microseconds, a message without event time has a null event time
+        assertEquals(publishTimes, ImmutableList.of(1_600_000_000_123_000L, 1_600_000_001_000_000L));
+        assertEquals(eventTimes, Arrays.asList(1_500_000_000_456_000L, null));
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testCountOnly()
+            throws Exception
+    {
+        TestingManagedLedger ledger = headerOnlyLedger();
+        PulsarRecordCursor cursor = ledger.cursor(ImmutableList.of(), ledger.split(0, ledger.getEntryCount()), TestingManagedLedger.config());
+        PulsarPageSource pageSource = new PulsarPageSource(cursor, ImmutableList.of());
+
+        // the rows are counted from the entry headers, the input of the partial count of the engine
+        assertTrue(cursor.isCountOnly());
+        int positions = 0;
+        for (Page page : ledger.readPages(pageSource)) {
+            assertEquals(page.getChannelCount(), 0);
+            positions += page.getPositionCount();
+        }
+        assertEquals(positions, 6);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testPublishTimeOnly()
+            throws Exception
+    {
+        TestingManagedLedger ledger = headerOnlyLedger();
+        List<PulsarColumnHandle> columns = ImmutableList.of(PulsarInternalColumn.PUBLISH_TIME.getColumnHandle("pulsar", false));
+        PulsarRecordCursor cursor = ledger.cursor(columns, ledger.split(0, ledger.getEntryCount()), TestingManagedLedger.config());
+        PulsarPageSource pageSource = new PulsarPageSource(cursor, columns);
+
+        // the publish times are read from the entry headers, the input of the partial min and max of the engine
+        assertTrue(cursor.isCountOnly());
+        List<Long> publishTimes = new ArrayList<>();
+        for (Page page : ledger.readPages(pageSource)) {
+            assertEquals(page.getChannelCount(), 1);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                publishTimes.add(TIMESTAMP_MILLIS.getLong(page.getBlock(0), position));
+            }
+        }
+        assertEquals(publishTimes, ImmutableList.of(
+                1_600_000_000_000_000L, 1_600_000_000_000_000L, 1_600_000_000_000_000L,
+                1_600_000_001_000_000L,
+                1_600_000_002_000_000L,
+                1_599_999_999_000_000L));
+        assertEquals(publishTimes.stream().mapToLong(Long::longValue).min().getAsLong(), 1_599_999_999_000_000L);
+        assertEquals(publishTimes.stream().mapToLong(Long::longValue).max().getAsLong(), 1_600_000_002_000_000L);
+
+        pageSource.close();
+        ledger.release();
+    }
+
+    /**
+     * A batch of three messages, two single messages and a message chunked over two entries, six rows.
+     */
+    private static TestingManagedLedger headerOnlyLedger()
+    {
+        return new TestingManagedLedger()
+                .addBatch(0, 1_600_000_000_000L, Arrays.asList("a", null, "c"), ImmutableList.of(0L, 0L, 0L),
+                        ImmutableList.of("first", "second", "third"))
+                .addMessage(3, 1_600_000_001_000L, null, 0, "fourth")
+                .addMessage(4, 1_600_000_002_000L, null, 0, "fifth")
+                .addChunkedMessage("chunked", 5, 1_599_999_999_000L, ImmutableList.of("chunked-", "message"));
+    }
+}
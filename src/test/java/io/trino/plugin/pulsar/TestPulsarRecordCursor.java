@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static io.trino.plugin.pulsar.decoder.primitive.PulsarPrimitiveRowDecoderFactory.PRIMITIVE_COLUMN_NAME;
+import static io.trino.spi.type.VarbinaryType.VARBINARY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class TestPulsarRecordCursor
+{
+    private static final List<PulsarColumnHandle> VALUE_COLUMNS = ImmutableList.of(
+            new PulsarColumnHandle("pulsar", PRIMITIVE_COLUMN_NAME, VARBINARY, false, false,
+                    PRIMITIVE_COLUMN_NAME, null, null, PulsarColumnHandle.HandleKeyValueType.NONE));
+
+    @Test
+    public void testChunkedMessageAcrossSplitEnd()
+            throws Exception
+    {
+        TestingManagedLedger ledger = new TestingManagedLedger()
+                .addMessage(0, 1000, null, 0, "first")
+                .addMessage(1, 1001, null, 0, "second")
+                .addMessage(2, 1002, null, 0, "third")
+                // the last chunk is past the end of the split
+                .addChunkedMessage("chunked", 3, 1003, ImmutableList.of("chunked-", "message"))
+                .addMessage(4, 1004, null, 0, "next split");
+
+        // the windows of the read-ahead end exactly at the end of the split, before the chunked message is seen
+        PulsarConnectorConfig config = TestingManagedLedger.config()
+                .setReadAheadDepth(2)
+                .setMaxEntryReadBatchSize(2)
+                .setAdaptiveReadEnabled(false);
+        PulsarRecordCursor cursor = ledger.cursor(VALUE_COLUMNS, ledger.split(0, 4), config);
+
+        assertEquals(readValues(cursor, ledger, row -> row.getSlice(0).toStringUtf8()),
+                ImmutableList.of("first", "second", "third", "chunked-message"));
+
+        cursor.close();
+        ledger.release();
+    }
+
+    @Test
+    public void testTimestampColumns()
+            throws Exception
+    {
+        TestingManagedLedger ledger = new TestingManagedLedger()
+                .addMessage(0, 1_600_000_000_123L, null, 1_500_000_000_456L, "first")
+                .addMessage(1, 1_600_000_001_000L, null, 0, "second");
+        List<PulsarColumnHandle> columns = ImmutableList.of(
+                PulsarInternalColumn.PUBLISH_TIME.getColumnHandle("pulsar", false),
+                PulsarInternalColumn.EVENT_TIME.getColumnHandle("pulsar", false));
+        PulsarRecordCursor cursor = ledger.cursor(columns, ledger.split(0, 2), TestingManagedLedger.config());
+
+        // TIMESTAMP(3) values are microseconds, a message without event time has a null event time
+        assertEquals(readValues(cursor, ledger, row -> Arrays.asList(row.getLong(0), row.isNull(1) ? null : row.getLong(1))),
+                ImmutableList.of(
+                        Arrays.asList(1_600_000_000_123_000L, 1_500_000_000_456_000L),
+                        Arrays.asList(1_600_000_001_000_000L, null)));
+
+        cursor.close();
+        ledger.release();
+    }
+
+    private static <T> List<T> readValues(PulsarRecordCursor cursor, TestingManagedLedger ledger, Function<PulsarRecordCursor, T> row)
+    {
+        List<T> values = new ArrayList<>();
+        for (int attempt = 0; attempt < 100_000; attempt++) {
+            if (cursor.tryAdvanceNextPosition()) {
+                values.add(row.apply(cursor));
+                continue;
+            }
+            if (cursor.isFinished()) {
+                return values;
+            }
+            if (!ledger.getExecutor().runAll() && !cursor.isBlocked().isDone()) {
+                fail("cursor is blocked with no deserialization pending after " + values);
+            }
+        }
+        throw new AssertionError("cursor did not finish, read " + values);
+    }
+}
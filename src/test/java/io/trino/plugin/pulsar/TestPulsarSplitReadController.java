@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarSplitReadController
+{
+    @Test
+    public void testStaticLimitsWhenDisabled()
+    {
+        PulsarSplitReadController controller = new PulsarSplitReadController(false, 100, 1000, 10000, 1024, 0);
+        controller.recordRead(10, 10 * 1024 * 1024, MILLISECONDS.toNanos(5));
+        controller.recordMessages(10, 10 * 1024 * 1024);
+        assertEquals(controller.getBatchSize(), 100);
+        assertEquals(controller.getEntryQueueLimit(), 1000);
+        assertEquals(controller.getMessageQueueLimit(), 10000);
+    }
+
+    @Test
+    public void testQueueLimitsFollowByteBudget()
+    {
+        PulsarSplitReadController controller = new PulsarSplitReadController(true, 100, 1000, 10000, 1024 * 1024, 0);
+
+        // large entries, the budget holds 16 of them
+        controller.recordRead(10, 10 * 64 * 1024, MILLISECONDS.toNanos(5));
+        assertEquals(controller.getEntryQueueLimit(), 16);
+        assertEquals(controller.getBatchSize(), 16);
+
+        // tiny messages are only limited by the configured queue size
+        controller.recordMessages(1000, 1000 * 10);
+        assertEquals(controller.getMessageQueueLimit(), 10000);
+    }
+
+    @Test
+    public void testUnboundedBudget()
+    {
+        PulsarSplitReadController controller = new PulsarSplitReadController(true, 100, 1000, 10000, -1, 0);
+        controller.recordRead(10, 10 * 64 * 1024 * 1024L, MILLISECONDS.toNanos(5));
+        controller.recordMessages(10, 10 * 64 * 1024 * 1024L);
+        assertEquals(controller.getEntryQueueLimit(), 1000);
+        assertEquals(controller.getMessageQueueLimit(), 10000);
+    }
+
+    @Test
+    public void testBatchSizeFollowsDrainRate()
+    {
+        PulsarSplitReadController controller = new PulsarSplitReadController(true, 100, 1000, 10000, -1, 0);
+        controller.recordRead(100, 100 * 1024, MILLISECONDS.toNanos(10));
+
+        // 1000 entries per second with 10ms round trips, read two round trips ahead
+        controller.recordEntriesProcessed(100, MILLISECONDS.toNanos(100));
+        assertEquals(controller.getBatchSize(), 20);
+
+        // a fast consumer is bounded by the configured batch size
+        controller.recordEntriesProcessed(1_000_000, MILLISECONDS.toNanos(200));
+        assertEquals(controller.getBatchSize(), 100);
+        assertTrue(controller.getEntryQueueLimit() >= controller.getBatchSize());
+    }
+}
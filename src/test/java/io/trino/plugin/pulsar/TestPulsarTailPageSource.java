@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.predicate.TupleDomain;
+import org.apache.pulsar.common.schema.SchemaType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarTailPageSource
+{
+    @Test
+    public void testWindowsFromTail()
+            throws Exception
+    {
+        PulsarSplit split = new PulsarSplit(0, "pulsar", "tenant/ns", "topic", "topic", 100, "", SchemaType.BYTES,
+                0, 100, 1, 1, TupleDomain.all(), "{}", null);
+        List<String> windows = new ArrayList<>();
+        Queue<Integer> windowRows = new ArrayDeque<>(ImmutableList.of(4, 8, 100));
+
+        PulsarTailPageSource pageSource = new PulsarTailPageSource(split, 10,
+                (base, offset, entries) -> {
+                    windows.add(offset + "+" + entries);
+                    return base;
+                },
+                window -> new SinglePageSource(windowRows.poll()));
+
+        int rows = 0;
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                rows += page.getPositionCount();
+            }
+        }
+
+        // the last 10 entries, then the 20 before them, which complete the rows needed
+        assertEquals(windows, ImmutableList.of("90+10", "70+20"));
+        assertEquals(rows, 12);
+        pageSource.close();
+    }
+
+    @Test
+    public void testShortRange()
+            throws Exception
+    {
+        PulsarSplit split = new PulsarSplit(0, "pulsar", "tenant/ns", "topic", "topic", 15, "", SchemaType.BYTES,
+                0, 15, 1, 1, TupleDomain.all(), "{}", null);
+        List<String> windows = new ArrayList<>();
+        AtomicBoolean closed = new AtomicBoolean();
+        PulsarTailPageSource pageSource = new PulsarTailPageSource(split, 10,
+                new PulsarTailPageSource.WindowFactory()
+                {
+                    @Override
+                    public PulsarSplit create(PulsarSplit base, long offset, long entries)
+                    {
+                        windows.add(offset + "+" + entries);
+                        return base;
+                    }
+
+                    @Override
+                    public void close()
+                    {
+                        closed.set(true);
+                    }
+                },
+                window -> new SinglePageSource(1));
+
+        while (!pageSource.isFinished()) {
+            pageSource.getNextPage();
+        }
+        assertEquals(windows, ImmutableList.of("5+10", "0+5"));
+        assertTrue(pageSource.isBlocked().isDone());
+        // the windows are released once the range is covered
+        assertTrue(closed.get());
+    }
+
+    private static class SinglePageSource
+            implements ConnectorPageSource
+    {
+        private final int positionCount;
+        private boolean finished;
+
+        SinglePageSource(int positionCount)
+        {
+            this.positionCount = positionCount;
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return finished;
+        }
+
+        @Override
+        public Page getNextPage()
+        {
+            finished = true;
+            return new Page(positionCount);
+        }
+
+        @Override
+        public CompletableFuture<?> isBlocked()
+        {
+            return NOT_BLOCKED;
+        }
+
+        @Override
+        public long getMemoryUsage()
+        {
+            return 0;
+        }
+
+        @Override
+        public void close()
+        {
+            finished = true;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import org.apache.bookkeeper.mledger.ManagedLedgerConfig;
+import org.apache.bookkeeper.mledger.ManagedLedgerFactory;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+
+public class TestPulsarTailWindows
+{
+    @Test
+    public void testOneCursorForAllWindows()
+            throws Exception
+    {
+        TestingManagedLedger ledger = new TestingManagedLedger();
+        for (int i = 0; i < 40; i++) {
+            ledger.addMessage(i, 1000 + i, null, 0, "message-" + i);
+        }
+        ManagedLedgerFactory managedLedgerFactory = ledger.managedLedgerFactory();
+        PulsarTailWindows windows = new PulsarTailWindows(managedLedgerFactory, new ManagedLedgerConfig());
+        PulsarSplit split = ledger.split(5, 40);
+
+        // the windows cover the range of the split from its tail
+        assertWindow(windows.create(split, 25, 10), 30, 40);
+        assertWindow(windows.create(split, 5, 20), 10, 30);
+        assertWindow(windows.create(split, 0, 5), 5, 10);
+        windows.close();
+
+        // a single cursor is opened for all windows
+        verify(managedLedgerFactory, times(1)).openReadOnlyCursor(anyString(), any(), any());
+        ledger.release();
+    }
+
+    private static void assertWindow(PulsarSplit window, long startEntryId, long endEntryId)
+    {
+        assertEquals(window.getStartPositionEntryId(), startEntryId);
+        assertEquals(window.getEndPositionEntryId(), endEntryId);
+        assertEquals(window.getSplitSize(), endEntryId - startEntryId);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.TupleDomain;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPulsarTupleDomainFilter
+{
+    private static final PulsarColumnHandle MESSAGE_ID = PulsarInternalColumn.MESSAGE_ID.getColumnHandle("pulsar", false);
+    private static final PulsarColumnHandle VALUE = new PulsarColumnHandle("pulsar", "value", BIGINT, false, false,
+            "value", null, null, PulsarColumnHandle.HandleKeyValueType.NONE);
+    private static final PulsarColumnHandle OTHER = new PulsarColumnHandle("pulsar", "other", BIGINT, false, false,
+            "other", null, null, PulsarColumnHandle.HandleKeyValueType.NONE);
+
+    @Test
+    public void testInternalAndDecodedColumns()
+    {
+        PulsarTupleDomainFilter filter = PulsarTupleDomainFilter.create(ImmutableList.of(MESSAGE_ID, VALUE), TupleDomain.withColumnDomains(ImmutableMap.of(
+                MESSAGE_ID, Domain.singleValue(VARCHAR, utf8Slice("1:1:-1")),
+                VALUE, Domain.singleValue(BIGINT, 42L))));
+        assertTrue(filter.hasInternalFilters());
+        assertTrue(filter.hasDecodedFilters());
+
+        PulsarFieldValueHolder[] row = row();
+        row[0].setSlice(utf8Slice("1:1:-1"));
+        row[1].setLong(42);
+        assertTrue(filter.matchesInternalColumns(row));
+        assertTrue(filter.matchesDecodedColumns(row));
+
+        row[0].setSlice(utf8Slice("1:2:-1"));
+        row[1].setLong(7);
+        assertFalse(filter.matchesInternalColumns(row));
+        assertFalse(filter.matchesDecodedColumns(row));
+
+        // nulls only match if the domain allows them
+        row[1].setNull();
+        assertFalse(filter.matchesDecodedColumns(row));
+    }
+
+    @Test
+    public void testHeaderColumns()
+    {
+        PulsarColumnHandle key = PulsarInternalColumn.KEY.getColumnHandle("pulsar", false);
+        PulsarTupleDomainFilter filter = PulsarTupleDomainFilter.create(ImmutableList.of(key), TupleDomain.withColumnDomains(ImmutableMap.of(
+                key, Domain.singleValue(VARCHAR, utf8Slice("key")))));
+        assertFalse(filter.hasInternalFilters());
+    }
+
+    @Test
+    public void testColumnsNotProjected()
+    {
+        PulsarTupleDomainFilter filter = PulsarTupleDomainFilter.create(ImmutableList.of(MESSAGE_ID, VALUE), TupleDomain.withColumnDomains(ImmutableMap.of(
+                OTHER, Domain.singleValue(BIGINT, 42L))));
+        assertFalse(filter.hasInternalFilters());
+        assertFalse(filter.hasDecodedFilters());
+    }
+
+    @Test
+    public void testNone()
+    {
+        List<PulsarColumnHandle> columns = ImmutableList.of(MESSAGE_ID, VALUE);
+        PulsarTupleDomainFilter filter = PulsarTupleDomainFilter.create(columns, TupleDomain.none());
+        assertTrue(filter.isNone());
+        assertTrue(filter.hasInternalFilters());
+        assertFalse(filter.matchesInternalColumns(row()));
+    }
+
+    private static PulsarFieldValueHolder[] row()
+    {
+        return new PulsarFieldValueHolder[] {new PulsarFieldValueHolder(), new PulsarFieldValueHolder()};
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.trino.plugin.pulsar.util.WorkerCacheSizeAllocator;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestWorkerCacheSizeAllocator
+{
+    @Test
+    public void testFairShare()
+    {
+        WorkerCacheSizeAllocator allocator = new WorkerCacheSizeAllocator(1000);
+        WorkerCacheSizeAllocator.QueueAllocator first = allocator.openQueue(-1);
+        assertEquals(first.getAvailableCacheSize(), 1000);
+
+        WorkerCacheSizeAllocator.QueueAllocator second = allocator.openQueue(-1);
+        assertEquals(first.getAvailableCacheSize(), 500);
+
+        // a share may be exceeded, the queue then backs off
+        first.allocate(700);
+        assertEquals(first.getAvailableCacheSize(), 0);
+        assertEquals(second.getAvailableCacheSize(), 300);
+        assertEquals(allocator.getAllocatedCacheSize(), 700);
+
+        // capped by the size of the queue
+        WorkerCacheSizeAllocator.QueueAllocator capped = allocator.openQueue(100);
+        assertEquals(capped.getAvailableCacheSize(), 100);
+
+        first.release(200);
+        assertEquals(first.getAllocatedCacheSize(), 500);
+        first.release(1000);
+        assertEquals(first.getAllocatedCacheSize(), 0);
+        assertEquals(allocator.getAllocatedCacheSize(), 0);
+        capped.close();
+        second.close();
+        first.close();
+    }
+
+    @Test
+    public void testCloseReleases()
+    {
+        WorkerCacheSizeAllocator allocator = new WorkerCacheSizeAllocator(1000);
+        WorkerCacheSizeAllocator.QueueAllocator queue = allocator.openQueue(-1);
+        queue.allocate(400);
+        assertEquals(allocator.getOpenQueues(), 1);
+
+        queue.close();
+        assertEquals(allocator.getOpenQueues(), 0);
+        assertEquals(allocator.getAllocatedCacheSize(), 0);
+
+        // allocations after close are not held
+        queue.allocate(100);
+        queue.close();
+        assertEquals(allocator.getAllocatedCacheSize(), 0);
+        assertEquals(allocator.getOpenQueues(), 0);
+    }
+}
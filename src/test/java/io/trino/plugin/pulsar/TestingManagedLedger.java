@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.pulsar;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.trino.spi.Page;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.testing.TestingConnectorContext;
+import org.apache.bookkeeper.mledger.AsyncCallbacks;
+import org.apache.bookkeeper.mledger.Entry;
+import org.apache.bookkeeper.mledger.ManagedLedgerConfig;
+import org.apache.bookkeeper.mledger.ManagedLedgerFactory;
+import org.apache.bookkeeper.mledger.impl.EntryImpl;
+import org.apache.bookkeeper.mledger.impl.PositionImpl;
+import org.apache.bookkeeper.mledger.impl.ReadOnlyCursorImpl;
+import org.apache.bookkeeper.mledger.proto.MLDataFormats;
+import org.apache.bookkeeper.stats.NullStatsProvider;
+import org.apache.pulsar.common.api.proto.BrokerEntryMetadata;
+import org.apache.pulsar.common.api.proto.MessageMetadata;
+import org.apache.pulsar.common.api.proto.SingleMessageMetadata;
+import org.apache.pulsar.common.protocol.Commands;
+import org.apache.pulsar.common.schema.SchemaType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+/**
+ * A single ledger of entries built in memory, read by {@link PulsarRecordCursor} through mocked read-only
+ * cursors. Reads complete on the calling thread and deserialization runs on a {@link QueuedExecutor} driven by
+ * the test, so a split is read deterministically.
+ */
+public class TestingManagedLedger
+{
+    public static final long LEDGER_ID = 1;
+    public static final String PRODUCER_NAME = "producer";
+
+    private final List<ByteBuf> entries = new ArrayList<>();
+    private final QueuedExecutor executor = new QueuedExecutor();
+    // index of the last message added, appended to the entries as by the broker once enabled
+    private boolean brokerIndex;
+    private long lastIndex = -1;
+
+    /**
+     * Append the index of the messages to the entries added from now on, as a broker with the
+     * AppendIndexMetadataInterceptor does.
+     */
+    public TestingManagedLedger withBrokerIndex()
+    {
+        brokerIndex = true;
+        return this;
+    }
+
+    /**
+     * Add an entry holding a single message, without key or event time if they are null or zero.
+     */
+    public TestingManagedLedger addMessage(long sequenceId, long publishTime, String key, long eventTime, String payload)
+    {
+        MessageMetadata metadata = metadata(sequenceId, publishTime);
+        if (key != null) {
+            metadata.setPartitionKey(key);
+        }
+        if (eventTime != 0) {
+            metadata.setEventTime(eventTime);
+        }
+        return addEntry(metadata, Unpooled.wrappedBuffer(payload.getBytes(UTF_8)));
+    }
+
+    /**
+     * Add an entry holding a batch of messages, the message {@code i} has the sequence id
+     * {@code sequenceId + i}, and a key and event time unless they are null or zero.
+     */
+    public TestingManagedLedger addBatch(long sequenceId, long publishTime, List<String> keys, List<Long> eventTimes,
+            List<String> payloads)
+    {
+        ByteBuf batch = Unpooled.buffer();
+        for (int i = 0; i < payloads.size(); i++) {
+            byte[] payload = payloads.get(i).getBytes(UTF_8);
+            SingleMessageMetadata singleMetadata = new SingleMessageMetadata()
+                    .setPayloadSize(payload.length)
+                    .setSequenceId(sequenceId + i);
+            if (keys.get(i) != null) {
+                singleMetadata.setPartitionKey(keys.get(i));
+            }
+            if (eventTimes.get(i) != 0) {
+                singleMetadata.setEventTime(eventTimes.get(i));
+            }
+            batch = Commands.serializeSingleMessageInBatchWithPayload(singleMetadata, Unpooled.wrappedBuffer(payload), batch);
+        }
+        MessageMetadata metadata = metadata(sequenceId, publishTime)
+                .setNumMessagesInBatch(payloads.size());
+        return addEntry(metadata, batch);
+    }
+
+    /**
+     * Add one entry per chunk of the message {@code uuid}, its payload is the concatenation of the chunks.
+     */
+    public TestingManagedLedger addChunkedMessage(String uuid, long sequenceId, long publishTime, List<String> chunks)
+    {
+        int totalSize = chunks.stream()
+                .mapToInt(chunk -> chunk.getBytes(UTF_8).length)
+                .sum();
+        for (int i = 0; i < chunks.size(); i++) {
+            MessageMetadata metadata = metadata(sequenceId, publishTime)
+                    .setUuid(uuid)
+                    .setChunkId(i)
+                    .setNumChunksFromMsg(chunks.size())
+                    .setTotalChunkMsgSize(totalSize);
+            addEntry(metadata, Unpooled.wrappedBuffer(chunks.get(i).getBytes(UTF_8)));
+        }
+        return this;
+    }
+
+    private TestingManagedLedger addEntry(MessageMetadata metadata, ByteBuf payload)
+    {
+        metadata.setUncompressedSize(payload.readableBytes());
+        ByteBuf entry = Commands.serializeMetadataAndPayload(Commands.ChecksumType.None, metadata, payload);
+        lastIndex += metadata.hasNumMessagesInBatch() ? metadata.getNumMessagesInBatch() : 1;
+        if (brokerIndex) {
+            BrokerEntryMetadata brokerEntryMetadata = new BrokerEntryMetadata().setIndex(lastIndex);
+            ByteBuf header = Unpooled.buffer();
+            header.writeShort(Commands.magicBrokerEntryMetadata);
+            header.writeInt(brokerEntryMetadata.getSerializedSize());
+            brokerEntryMetadata.writeTo(header);
+            entry = Unpooled.wrappedBuffer(header, entry);
+        }
+        entries.add(entry);
+        return this;
+    }
+
+    private static MessageMetadata metadata(long sequenceId, long publishTime)
+    {
+        return new MessageMetadata()
+                .setProducerName(PRODUCER_NAME)
+                .setSequenceId(sequenceId)
+                .setPublishTime(publishTime);
+    }
+
+    public int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    /**
+     * A split of a BYTES topic over the entries {@code [startEntryId, endEntryId)} of the ledger.
+     */
+    public PulsarSplit split(long startEntryId, long endEntryId)
+            throws Exception
+    {
+        return split("topic", startEntryId, endEntryId);
+    }
+
+    /**
+     * A split of the BYTES topic or partition {@code tableName} over the entries {@code [startEntryId, endEntryId)}
+     * of the ledger.
+     */
+    public PulsarSplit split(String tableName, long startEntryId, long endEntryId)
+            throws Exception
+    {
+        return new PulsarSplit(0, "pulsar", "tenant/ns", "topic", tableName, endEntryId - startEntryId, "",
+                SchemaType.BYTES, startEntryId, endEntryId, LEDGER_ID, LEDGER_ID, TupleDomain.all(), "{}", null);
+    }
+
+    public static PulsarConnectorConfig config()
+    {
+        return new PulsarConnectorConfig()
+                .setWebServiceUrl("http://localhost:8080")
+                .setReadAheadDepth(1)
+                .setSplitDeserializationParallelism(1);
+    }
+
+    public PulsarRecordCursor cursor(List<PulsarColumnHandle> columns, PulsarSplit split, PulsarConnectorConfig config)
+    {
+        return new PulsarRecordCursor(columns, split, config, managedLedgerFactory(), new ManagedLedgerConfig(),
+                new PulsarConnectorMetricsTracker(new NullStatsProvider()),
+                new PulsarDispatchingRowDecoderFactory(new TestingConnectorContext().getTypeManager()),
+                executor);
+    }
+
+    public QueuedExecutor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * A managed ledger factory opening read-only cursors over the entries of the ledger.
+     */
+    public ManagedLedgerFactory managedLedgerFactory()
+    {
+        ManagedLedgerFactory factory = mock(ManagedLedgerFactory.class);
+        try {
+            when(factory.openReadOnlyCursor(anyString(), any(), any()))
+                    .thenAnswer(invocation -> readOnlyCursor((PositionImpl) invocation.getArgument(1)));
+        }
+        catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        return factory;
+    }
+
+    private ReadOnlyCursorImpl readOnlyCursor(PositionImpl start)
+    {
+        AtomicLong readEntryId = new AtomicLong(start.getEntryId());
+        ReadOnlyCursorImpl cursor = mock(ReadOnlyCursorImpl.class);
+        when(cursor.getReadPosition()).thenAnswer(invocation -> PositionImpl.get(LEDGER_ID, readEntryId.get()));
+        when(cursor.hasMoreEntries()).thenAnswer(invocation -> readEntryId.get() < entries.size());
+        when(cursor.getNumberOfEntries()).thenAnswer(invocation -> Math.max(0, entries.size() - readEntryId.get()));
+        when(cursor.getCurrentLedgerInfo()).thenReturn(MLDataFormats.ManagedLedgerInfo.LedgerInfo.newBuilder()
+                .setLedgerId(LEDGER_ID)
+                .setEntries(entries.size())
+                .build());
+        doAnswer(invocation -> {
+            readEntryId.set(Math.min(entries.size(), readEntryId.get() + (int) invocation.getArgument(0)));
+            return null;
+        }).when(cursor).skipEntries(anyInt());
+        doAnswer(invocation -> {
+            readEntryId.set(((PositionImpl) invocation.getArgument(0)).getEntryId());
+            return null;
+        }).when(cursor).seek(any());
+        doAnswer(invocation -> {
+            read(readEntryId, invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(cursor).asyncReadEntries(anyInt(), any(), any(), any());
+        doAnswer(invocation -> {
+            read(readEntryId, invocation.getArgument(0), invocation.getArgument(2), invocation.getArgument(3));
+            return null;
+        }).when(cursor).asyncReadEntries(anyInt(), anyLong(), any(), any(), any());
+        return cursor;
+    }
+
+    private void read(AtomicLong readEntryId, int numberOfEntries, AsyncCallbacks.ReadEntriesCallback callback, Object ctx)
+    {
+        List<Entry> read = new ArrayList<>();
+        while (read.size() < numberOfEntries && readEntryId.get() < entries.size()) {
+            long entryId = readEntryId.getAndIncrement();
+            read.add(EntryImpl.create(LEDGER_ID, entryId, entries.get((int) entryId).duplicate()));
+        }
+        callback.readEntriesComplete(read, ctx);
+    }
+
+    /**
+     * Read all pages of {@code pageSource}, running the deserialization whenever it is blocked.
+     */
+    public List<Page> readPages(ConnectorPageSource pageSource)
+    {
+        List<Page> pages = new ArrayList<>();
+        for (int attempt = 0; attempt < 1_000_000; attempt++) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                pages.add(page.getLoadedPage());
+            }
+            if (pageSource.isFinished()) {
+                return pages;
+            }
+            if (page == null && !executor.runAll() && !pageSource.isBlocked().isDone()) {
+                fail("page source is blocked with no deserialization pending");
+            }
+        }
+        throw new AssertionError("page source did not finish");
+    }
+
+    public void release()
+    {
+        entries.forEach(ByteBuf::release);
+        entries.clear();
+    }
+
+    /**
+     * Executor of the deserialization tasks of a split, which runs them when the test asks for it.
+     */
+    public static class QueuedExecutor
+            implements Executor
+    {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable task)
+        {
+            tasks.add(task);
+        }
+
+        /**
+         * Run the queued tasks and the tasks they queue, returns false if none was queued.
+         */
+        public boolean runAll()
+        {
+            boolean ran = false;
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                }
+                if (task == null) {
+                    return ran;
+                }
+                task.run();
+                ran = true;
+            }
+        }
+    }
+}
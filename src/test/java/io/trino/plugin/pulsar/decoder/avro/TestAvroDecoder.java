@@ -14,9 +14,12 @@
 package io.trino.plugin.pulsar.decoder.avro;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
 import io.trino.plugin.pulsar.PulsarColumnHandle;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
+import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.plugin.pulsar.decoder.AbstractDecoderTester;
 import io.trino.plugin.pulsar.decoder.DecoderTestMessage;
 import io.trino.spi.TrinoException;
@@ -27,6 +30,14 @@ import io.trino.spi.type.StandardTypes;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeSignatureParameter;
 import io.trino.spi.type.VarcharType;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
 import org.apache.pulsar.client.api.PulsarClientException;
 import org.apache.pulsar.client.impl.schema.AvroSchema;
 import org.apache.pulsar.client.impl.schema.generic.GenericAvroRecord;
@@ -36,6 +47,7 @@ import org.apache.pulsar.shade.io.netty.buffer.Unpooled;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -57,6 +69,7 @@ import static io.trino.spi.type.VarcharType.VARCHAR;
 import static java.lang.Float.floatToIntBits;
 import static java.lang.Math.toIntExact;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.expectThrows;
 
@@ -132,6 +145,102 @@ public class TestAvroDecoder
         checkValue(decodedRow, enumFieldColumnHandle, message.enumField.toString());
     }
 
+    @Test
+    public void testProjectedColumns()
+    {
+        DecoderTestMessage message = new DecoderTestMessage();
+        message.stringField = "message_2";
+        message.intField = 33;
+        message.longField = 333L;
+
+        PulsarColumnHandle stringFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "stringField", VARCHAR, false, false, "stringField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle longFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "longField", BIGINT, false, false, "longField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarRowDecoder projectedDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo,
+                new HashSet<>(ImmutableList.of(stringFieldColumnHandle, longFieldColumnHandle)));
+
+        // a direct payload, as read from BookKeeper
+        byte[] bytes = schema.encode(message);
+        ByteBuf payload = Unpooled.directBuffer(bytes.length);
+        payload.writeBytes(bytes);
+        Map<DecoderColumnHandle, FieldValueProvider> decodedRow = projectedDecoder.decodeRow(payload).get();
+        assertEquals(decodedRow.size(), 2);
+        checkValue(decodedRow, stringFieldColumnHandle, message.stringField);
+        checkValue(decodedRow, longFieldColumnHandle, message.longField);
+
+        // columns decoded from the record, in the order of the decoder columns
+        PulsarFieldValueHolder[] values = {new PulsarFieldValueHolder(), new PulsarFieldValueHolder()};
+        Object record = projectedDecoder.decodeRecord(payload);
+        for (int i = 0; i < values.length; i++) {
+            projectedDecoder.decodeColumn(record, i, values[i]);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (projectedDecoder.getColumns().get(i).equals(stringFieldColumnHandle)) {
+                assertEquals(values[i].getSlice().toStringUtf8(), message.stringField);
+            }
+            else {
+                assertEquals(values[i].getLong(), message.longField);
+            }
+        }
+        payload.release();
+    }
+
+    @Test
+    public void testVarcharFromUtf8()
+            throws Exception
+    {
+        Schema writerSchema = SchemaBuilder.record("Message").fields()
+                .requiredString("stringField")
+                .requiredLong("longField")
+                .endRecord();
+        GenericRecord message = new GenericData.Record(writerSchema);
+        message.put("stringField", "message_3");
+        message.put("longField", 333L);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(bytes, null);
+        new GenericDatumWriter<GenericRecord>(writerSchema).write(message, encoder);
+        encoder.flush();
+
+        PulsarColumnHandle stringFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "stringField", VARCHAR, false, false, "stringField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarAvroRowDecoder decoder = new PulsarAvroRowDecoder(writerSchema, ImmutableSet.of(stringFieldColumnHandle));
+        GenericRecord record = (GenericRecord) decoder.decodeRecord(Unpooled.wrappedBuffer(bytes.toByteArray()));
+        Utf8 stringField = (Utf8) record.get("stringField");
+
+        // the slice wraps the bytes of the decoded Utf8, without a String round trip
+        PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+        decoder.decodeColumn(record, 0, value);
+        assertSame(value.getSlice().byteArray(), stringField.getBytes());
+        assertEquals(value.getSlice().toStringUtf8(), "message_3");
+    }
+
+    @Test
+    public void testVarcharFromString()
+            throws Exception
+    {
+        // a string the datum reader reads as a String rather than a Utf8
+        Schema writerSchema = SchemaBuilder.record("Message").fields()
+                .name("stringField").type().stringBuilder().prop(GenericData.STRING_PROP, GenericData.StringType.String.name()).endString().noDefault()
+                .endRecord();
+        GenericRecord message = new GenericData.Record(writerSchema);
+        message.put("stringField", "message_4");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(bytes, null);
+        new GenericDatumWriter<GenericRecord>(writerSchema).write(message, encoder);
+        encoder.flush();
+
+        PulsarColumnHandle stringFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "stringField", VARCHAR, false, false, "stringField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarAvroRowDecoder decoder = new PulsarAvroRowDecoder(writerSchema, ImmutableSet.of(stringFieldColumnHandle));
+        GenericRecord record = (GenericRecord) decoder.decodeRecord(Unpooled.wrappedBuffer(bytes.toByteArray()));
+        assertTrue(record.get("stringField") instanceof String);
+
+        PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+        decoder.decodeColumn(record, 0, value);
+        assertEquals(value.getSlice().toStringUtf8(), "message_4");
+    }
+
     @Test
     public void testRow()
     {
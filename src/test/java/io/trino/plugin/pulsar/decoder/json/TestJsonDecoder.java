@@ -17,6 +17,8 @@ import com.google.common.collect.ImmutableList;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
 import io.trino.plugin.pulsar.PulsarColumnHandle;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
+import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.plugin.pulsar.decoder.AbstractDecoderTester;
 import io.trino.plugin.pulsar.decoder.DecoderTestMessage;
 import io.trino.spi.TrinoException;
@@ -56,6 +58,7 @@ import static io.trino.spi.type.RealType.REAL;
 import static io.trino.spi.type.VarcharType.VARCHAR;
 import static java.lang.Float.floatToIntBits;
 import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.expectThrows;
@@ -132,6 +135,94 @@ public class TestJsonDecoder
         checkValue(decodedRow, enumFieldColumnHandle, message.enumField.toString());
     }
 
+    @Test
+    public void testProjectedColumns()
+    {
+        DecoderTestMessage message = new DecoderTestMessage();
+        message.stringField = "message_2";
+        message.longField = 333L;
+        DecoderTestMessage.TestRow testRow = new DecoderTestMessage.TestRow();
+        testRow.stringField = "message_2_testRow";
+        message.rowField = testRow;
+
+        PulsarColumnHandle longFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "longField", BIGINT, false, false, "longField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle nestedFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "rowField.stringField", VARCHAR, false, false, "rowField/stringField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle missingFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "missingField", VARCHAR, false, false, "missingField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarRowDecoder projectedDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo,
+                new HashSet<>(ImmutableList.of(longFieldColumnHandle, nestedFieldColumnHandle, missingFieldColumnHandle)));
+
+        // a direct payload, as read from BookKeeper
+        byte[] bytes = schema.encode(message);
+        ByteBuf payload = Unpooled.directBuffer(bytes.length);
+        payload.writeBytes(bytes);
+        Map<DecoderColumnHandle, FieldValueProvider> decodedRow = projectedDecoder.decodeRow(payload).get();
+        assertEquals(decodedRow.size(), 3);
+        checkValue(decodedRow, longFieldColumnHandle, message.longField);
+        checkValue(decodedRow, nestedFieldColumnHandle, testRow.stringField);
+        assertTrue(decodedRow.get(missingFieldColumnHandle).isNull());
+        payload.release();
+    }
+
+    @Test
+    public void testScalarTokens()
+    {
+        PulsarColumnHandle longFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "longField", BIGINT, false, false, "longField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle doubleFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "doubleField", DOUBLE, false, false, "doubleField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle booleanFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "booleanField", BOOLEAN, false, false, "booleanField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle textFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "stringField", BIGINT, false, false, "stringField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle invalidFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "intField", INTEGER, false, false, "intField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle objectFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "rowField", VARCHAR, false, false, "rowField", null, null, Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarRowDecoder rowDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo,
+                new HashSet<>(ImmutableList.of(longFieldColumnHandle, doubleFieldColumnHandle, booleanFieldColumnHandle,
+                        textFieldColumnHandle, invalidFieldColumnHandle, objectFieldColumnHandle)));
+
+        byte[] bytes = "{\"longField\":7,\"doubleField\":1.5,\"booleanField\":1,\"stringField\":\"12\",\"intField\":\"x\",\"rowField\":{\"stringField\":\"s\"}}"
+                .getBytes(UTF_8);
+        ByteBuf payload = Unpooled.directBuffer(bytes.length);
+        payload.writeBytes(bytes);
+        PulsarJsonRowDecoder.JsonRecord record = (PulsarJsonRowDecoder.JsonRecord) rowDecoder.decodeRecord(payload);
+        payload.release();
+
+        List<DecoderColumnHandle> columns = rowDecoder.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            DecoderColumnHandle column = columns.get(i);
+            // only the object is read as a node, the scalar tokens are read straight into the values
+            assertEquals(record.isNode(i), column.equals(objectFieldColumnHandle));
+            PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+            if (column.equals(invalidFieldColumnHandle)) {
+                // as the provider of the value, the conversion fails when the column is read
+                int index = i;
+                expectThrows(TrinoException.class, () -> rowDecoder.decodeColumn(record, index, value));
+                continue;
+            }
+            rowDecoder.decodeColumn(record, i, value);
+            if (column.equals(longFieldColumnHandle)) {
+                assertEquals(value.getLong(), 7L);
+            }
+            else if (column.equals(doubleFieldColumnHandle)) {
+                assertEquals(value.getDouble(), 1.5d);
+            }
+            else if (column.equals(booleanFieldColumnHandle)) {
+                assertTrue(value.getBoolean());
+            }
+            else if (column.equals(textFieldColumnHandle)) {
+                assertEquals(value.getLong(), 12L);
+            }
+            else {
+                assertEquals(value.getSlice().toStringUtf8(), "{\"stringField\":\"s\"}");
+            }
+        }
+    }
+
     @Test
     public void testArray()
     {
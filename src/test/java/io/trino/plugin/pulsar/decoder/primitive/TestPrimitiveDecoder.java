@@ -17,11 +17,13 @@ import io.airlift.slice.Slices;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
 import io.trino.plugin.pulsar.PulsarColumnHandle;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
 import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.plugin.pulsar.decoder.AbstractDecoderTester;
 import org.apache.pulsar.client.api.PulsarClientException;
 import org.apache.pulsar.client.api.Schema;
 import org.apache.pulsar.client.impl.schema.SchemaInfoImpl;
+import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
 import org.apache.pulsar.shade.io.netty.buffer.Unpooled;
 import org.apache.pulsar.common.schema.SchemaInfo;
 import org.apache.pulsar.common.schema.SchemaType;
@@ -49,6 +51,9 @@ import static io.trino.spi.type.TimestampType.TIMESTAMP;
 import static io.trino.spi.type.TinyintType.TINYINT;
 import static io.trino.spi.type.VarbinaryType.VARBINARY;
 import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestPrimitiveDecoder
@@ -231,4 +236,49 @@ public class TestPrimitiveDecoder
                 PRIMITIVE_COLUMN_NAME, TIMESTAMP, false, false, PRIMITIVE_COLUMN_NAME, null, null,
                 Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE)), timestampValue.getTime());
     }
+
+    @Test(singleThreaded = true)
+    public void testFixedWidthValues()
+    {
+        PulsarFieldValueHolder int16 = decode(SchemaType.INT16, Schema.INT16.encode((short) -2));
+        assertEquals(int16.getLong(), -2);
+
+        PulsarFieldValueHolder int32 = decode(SchemaType.INT32, Schema.INT32.encode(Integer.MIN_VALUE));
+        assertEquals(int32.getLong(), Integer.MIN_VALUE);
+
+        PulsarFieldValueHolder floatValue = decode(SchemaType.FLOAT, Schema.FLOAT.encode(-0.5f));
+        assertEquals(floatValue.getLong(), Float.floatToIntBits(-0.5f));
+
+        PulsarFieldValueHolder doubleValue = decode(SchemaType.DOUBLE, Schema.DOUBLE.encode(1.25d));
+        assertEquals(doubleValue.getDouble(), 1.25d);
+
+        PulsarFieldValueHolder booleanValue = decode(SchemaType.BOOLEAN, Schema.BOOL.encode(false));
+        assertFalse(booleanValue.getBoolean());
+
+        Timestamp timestampValue = new Timestamp(System.currentTimeMillis());
+        PulsarFieldValueHolder timestamp = decode(SchemaType.TIMESTAMP, Schema.TIMESTAMP.encode(timestampValue));
+        assertEquals(timestamp.getLong(), timestampValue.getTime());
+    }
+
+    /**
+     * Decode {@code bytes} of a direct payload from the record of the decoder, which holds the value unboxed.
+     */
+    private PulsarFieldValueHolder decode(SchemaType schemaType, byte[] bytes)
+    {
+        SchemaInfo schemaInfo = SchemaInfoImpl.builder().type(schemaType).build();
+        List<PulsarColumnHandle> columnHandles = getColumnColumnHandles(topicName, schemaInfo,
+                PulsarColumnHandle.HandleKeyValueType.NONE, false, decoderFactory);
+        PulsarRowDecoder rowDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo, new HashSet<>(columnHandles));
+
+        ByteBuf payload = Unpooled.directBuffer(bytes.length);
+        payload.writeBytes(bytes);
+        PulsarFieldValueHolder value = new PulsarFieldValueHolder();
+        Object record = rowDecoder.decodeRecord(payload);
+        payload.release();
+        assertTrue(record instanceof PulsarPrimitiveRowDecoder.PrimitiveRecord);
+        rowDecoder.decodeColumn(record, 0, value);
+
+        assertFalse(value.isNull());
+        return value;
+    }
 }
@@ -17,6 +17,8 @@ import com.google.common.collect.ImmutableList;
 import io.trino.decoder.DecoderColumnHandle;
 import io.trino.decoder.FieldValueProvider;
 import io.trino.plugin.pulsar.PulsarColumnHandle;
+import io.trino.plugin.pulsar.PulsarFieldValueHolder;
+import io.trino.plugin.pulsar.PulsarRowDecoder;
 import io.trino.plugin.pulsar.decoder.AbstractDecoderTester;
 import io.trino.spi.type.ArrayType;
 import io.trino.spi.type.RowType;
@@ -28,6 +30,7 @@ import org.apache.pulsar.client.impl.schema.ProtobufNativeSchema;
 import org.apache.pulsar.client.impl.schema.generic.GenericProtobufNativeRecord;
 import org.apache.pulsar.client.impl.schema.generic.GenericProtobufNativeSchema;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.DynamicMessage;
 import org.apache.pulsar.shade.io.netty.buffer.ByteBuf;
 import org.apache.pulsar.shade.io.netty.buffer.Unpooled;
 import org.testng.annotations.BeforeMethod;
@@ -46,6 +49,8 @@ import static io.trino.spi.type.DoubleType.DOUBLE;
 import static io.trino.spi.type.IntegerType.INTEGER;
 import static io.trino.spi.type.VarbinaryType.VARBINARY;
 import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
@@ -169,6 +174,120 @@ public class TestProtobufNativeDecoder
         checkValue(decodedRow, enumFieldColumnHandle, testMessage.getTestEnum().name());
     }
 
+    @Test
+    public void testProjectedColumns()
+    {
+        TestMsg.TestMessage testMessage = TestMsg.TestMessage.newBuilder()
+                .setStringField("aaa")
+                .setInt64Field(44L)
+                .setSint32Field(-12)
+                .setBytesField(ByteString.copyFrom(new byte[64 * 1024]))
+                .addRepeatedField("bbb")
+                .putMapField("key", 1.1D)
+                .build();
+
+        PulsarColumnHandle stringFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "stringField", VARCHAR, false, false, "stringField", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle sint32FieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "sint32Field", INTEGER, false, false, "sint32Field", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarRowDecoder projectedDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo,
+                new HashSet<>(ImmutableList.of(stringFieldColumnHandle, sint32FieldColumnHandle)));
+
+        // a direct payload, as read from BookKeeper
+        byte[] bytes = schema.encode(testMessage);
+        ByteBuf payload = Unpooled.directBuffer(bytes.length);
+        payload.writeBytes(bytes);
+        Map<DecoderColumnHandle, FieldValueProvider> decodedRow = projectedDecoder.decodeRow(payload).get();
+        assertEquals(decodedRow.size(), 2);
+        checkValue(decodedRow, stringFieldColumnHandle, testMessage.getStringField());
+        checkValue(decodedRow, sint32FieldColumnHandle, testMessage.getSint32Field());
+
+        // the scalar fields are read without building a message
+        PulsarProtobufNativeRowDecoder.ProjectedRecord record = (PulsarProtobufNativeRowDecoder.ProjectedRecord) projectedDecoder.decodeRecord(payload);
+        assertNull(record.getMessage());
+
+        PulsarFieldValueHolder[] values = {new PulsarFieldValueHolder(), new PulsarFieldValueHolder()};
+        for (int i = 0; i < values.length; i++) {
+            projectedDecoder.decodeColumn(record, i, values[i]);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (projectedDecoder.getColumns().get(i).equals(stringFieldColumnHandle)) {
+                assertEquals(values[i].getSlice().toStringUtf8(), testMessage.getStringField());
+            }
+            else {
+                assertEquals(values[i].getLong(), testMessage.getSint32Field());
+            }
+        }
+        payload.release();
+    }
+
+    @Test
+    public void testProjectedScalarAndMessageFields()
+    {
+        TestMsg.TestMessage testMessage = TestMsg.TestMessage.newBuilder()
+                .setStringField("aaa")
+                .setUint64Field(-1L)
+                .setBytesField(ByteString.copyFrom("abc".getBytes(StandardCharsets.UTF_8)))
+                .setTestEnum(TestMsg.TestEnum.FAILOVER)
+                .setSubMessage(TestMsg.SubMessage.newBuilder().setFoo("foo").build())
+                .addRepeatedField("first").addRepeatedField("second")
+                .build();
+
+        PulsarColumnHandle stringFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "stringField", VARCHAR, false, false, "stringField", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle uint64FieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "uint64Field", BIGINT, false, false, "uint64Field", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle bytesFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "bytesField", VARBINARY, false, false, "bytesField", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle enumFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "testEnum", VARCHAR, false, false, "testEnum", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle int32FieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "int32Field", INTEGER, false, false, "int32Field", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarColumnHandle repeatedFieldColumnHandle = new PulsarColumnHandle(getCatalogName().toString(),
+                "repeatedField", new ArrayType(VARCHAR), false, false, "repeatedField", null, null,
+                Optional.of(PulsarColumnHandle.HandleKeyValueType.NONE));
+        PulsarRowDecoder projectedDecoder = decoderFactory.createRowDecoder(topicName, schemaInfo,
+                new HashSet<>(ImmutableList.of(stringFieldColumnHandle, uint64FieldColumnHandle, bytesFieldColumnHandle,
+                        enumFieldColumnHandle, int32FieldColumnHandle, repeatedFieldColumnHandle)));
+
+        byte[] bytes = schema.encode(testMessage);
+        ByteBuf payload = Unpooled.copiedBuffer(bytes);
+        Map<DecoderColumnHandle, FieldValueProvider> decodedRow = projectedDecoder.decodeRow(payload).get();
+        checkValue(decodedRow, stringFieldColumnHandle, testMessage.getStringField());
+        checkValue(decodedRow, uint64FieldColumnHandle, testMessage.getUint64Field());
+        checkValue(decodedRow, bytesFieldColumnHandle, testMessage.getBytesField().toStringUtf8());
+        checkValue(decodedRow, enumFieldColumnHandle, testMessage.getTestEnum().name());
+        // a field missing from the payload has its default value, as in a message
+        checkValue(decodedRow, int32FieldColumnHandle, 0);
+
+        GenericProtobufNativeRecord genericRecord =
+                (GenericProtobufNativeRecord) GenericProtobufNativeSchema.of(schemaInfo).decode(bytes);
+        Object fieldValue =
+                genericRecord.getProtobufRecord().getField(genericRecord.getProtobufRecord().getDescriptorForType().findFieldByName("repeatedField"));
+        checkArrayValues(getBlock(decodedRow, repeatedFieldColumnHandle), repeatedFieldColumnHandle.getType(), fieldValue);
+
+        // only the repeated field is built into a message, the scalar fields are read from the payload
+        PulsarProtobufNativeRowDecoder.ProjectedRecord record = (PulsarProtobufNativeRowDecoder.ProjectedRecord) projectedDecoder.decodeRecord(payload);
+        DynamicMessage message = record.getMessage();
+        assertEquals(message.getAllFields().size(), 1);
+        assertEquals(message.getRepeatedFieldCount(message.getDescriptorForType().findFieldByName("repeatedField")), 2);
+        payload.release();
+
+        // string and bytes fields missing from the payload have the default value of their column
+        ByteBuf emptyPayload = Unpooled.copiedBuffer(schema.encode(TestMsg.TestMessage.newBuilder().setUint64Field(1L).build()));
+        Map<DecoderColumnHandle, FieldValueProvider> defaultRow = projectedDecoder.decodeRow(emptyPayload).get();
+        checkValue(defaultRow, stringFieldColumnHandle, "");
+        checkValue(defaultRow, bytesFieldColumnHandle, "");
+        emptyPayload.release();
+    }
+
     @Test
     public void testRow()
     {